@@ -0,0 +1,181 @@
+package com.example.common.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Builds a service's caches from {@code cache.<name>.*}, falling back to {@code cache.default.*}.
+ * {@code max-weight} bounds the rows a cache holds (a page or list weighs as many rows as it
+ * contains), and {@code refresh-after-write} reloads entries that are still being read in the
+ * background, for the caches given a loader. Caches given a row id function hold pages or lists and
+ * are built as {@link RowIndexedCache}s.
+ *
+ * <p>With {@code cache.l2.type} set to {@code redis} (or {@code local}, an in-process stand-in) every
+ * cache becomes a {@link TwoLevelCache}: the Caffeine cache is a per-node L1 in front of a store shared
+ * by all replicas, and L1 entries live at most {@code cache.l2.l1-expire-after-write} in case an
+ * invalidation message is lost. A failing shared store is logged and treated as a miss, so reads
+ * fall through to the database instead of failing.
+ */
+@Configuration
+@EnableCaching
+public class CacheFactory implements CachingConfigurer {
+
+    private static final long DEFAULT_MAX_WEIGHT = 10_000;
+    private static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(300);
+
+    private final Environment environment;
+    private final ObjectProvider<RedisConnectionFactory> redisConnectionFactory;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${cache.refresh-threads:2}")
+    private int refreshThreads;
+
+    @Value("${cache.l2.type:none}")
+    private String l2Type;
+
+    @Value("${cache.l2.l1-expire-after-write:1m}")
+    private Duration l1ExpireAfterWrite;
+
+    @Value("${cache.l2.local.max-size:100000}")
+    private long localStoreMaxSize;
+
+    @Value("${spring.application.name}")
+    private String applicationName;
+
+    public CacheFactory(Environment environment, ObjectProvider<RedisConnectionFactory> redisConnectionFactory,
+                        MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.redisConnectionFactory = redisConnectionFactory;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler();
+    }
+
+    // Runs refreshes and Caffeine maintenance, so JDBC reloads stay off the common fork-join pool
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService cacheRefreshExecutor() {
+        return Executors.newFixedThreadPool(refreshThreads);
+    }
+
+    @Bean
+    public SharedCacheStore sharedCacheStore() {
+        if ("redis".equals(l2Type)) {
+            return new RedisCacheStore(redisConnectionFactory.getObject(), applicationName + ":cache:");
+        }
+        return new LocalCacheStore(localStoreMaxSize);
+    }
+
+    // Spring Boot only binds CaffeineCache instances by itself
+    @Bean
+    public CacheMeterBinderProvider<TwoLevelCache> twoLevelCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(cache.getNativeCache(), cache.getName(), tags);
+    }
+
+    /**
+     * Builds the named caches. The names are fixed so every cache exists at startup, where Spring Boot
+     * binds its hit, miss, put and eviction statistics to Micrometer. {@code loaders} load a single
+     * row by key; {@code rowIds} give the id of a row held by a page or list cache.
+     */
+    public CacheManager build(List<String> names, Map<String, CacheLoader<Object, Object>> loaders,
+                              Map<String, Function<Object, ?>> rowIds) {
+        // Bean methods, so these are the container's singletons
+        ExecutorService executor = cacheRefreshExecutor();
+        SharedCacheStore shared = sharedCacheStore();
+
+        boolean twoLevel = !"none".equals(l2Type);
+        Map<String, Cache> caches = new LinkedHashMap<>();
+        for (String name : names) {
+            Duration ttl = property(name, "expire-after-write", Duration.class, DEFAULT_EXPIRE_AFTER_WRITE);
+            Duration refresh = property(name, "refresh-after-write", Duration.class, null);
+            CacheLoader<Object, Object> loader = refresh != null ? loaders.get(name) : null;
+            Function<Object, ?> rowId = rowIds.get(name);
+
+            if (twoLevel) {
+                Duration localTtl = ttl.compareTo(l1ExpireAfterWrite) < 0 ? ttl : l1ExpireAfterWrite;
+                Caffeine<Object, Object> local = builder(name, localTtl, executor);
+                if (loader != null) {
+                    local.refreshAfterWrite(refresh);
+                }
+                caches.put(name, new TwoLevelCache(name, local, loader, rowId, shared, ttl, meterRegistry));
+            } else {
+                Caffeine<Object, Object> builder = builder(name, ttl, executor);
+                if (loader != null) {
+                    caches.put(name, new CaffeineCache(name, builder.refreshAfterWrite(refresh).build(loader)));
+                } else if (rowId != null) {
+                    caches.put(name, new IndexedCaffeineCache(name, builder, rowId));
+                } else {
+                    caches.put(name, new CaffeineCache(name, builder.build()));
+                }
+            }
+        }
+
+        if (twoLevel) {
+            shared.onInvalidation((cacheName, key) -> {
+                if (caches.get(cacheName) instanceof TwoLevelCache cache) {
+                    cache.invalidateLocal(key);
+                }
+            });
+        }
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(caches.values());
+        return cacheManager;
+    }
+
+    private Caffeine<Object, Object> builder(String name, Duration expireAfterWrite, Executor executor) {
+        return Caffeine.newBuilder()
+                .maximumWeight(property(name, "max-weight", Long.class, DEFAULT_MAX_WEIGHT))
+                .weigher(CacheFactory::rows)
+                .expireAfterWrite(expireAfterWrite)
+                .executor(executor)
+                .recordStats();
+    }
+
+    private <T> T property(String cache, String key, Class<T> type, T defaultValue) {
+        T fallback = environment.getProperty("cache.default." + key, type, defaultValue);
+        return environment.getProperty("cache." + cache + "." + key, type, fallback);
+    }
+
+    private static int rows(Object key, Object value) {
+        if (value instanceof Page<?> page) {
+            return Math.max(1, page.getNumberOfElements());
+        }
+        if (value instanceof Collection<?> rows) {
+            return Math.max(1, rows.size());
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.common.cache;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+
+/**
+ * Targeted eviction for caches whose values are pages or lists of rows: only the entries holding an
+ * affected row, or the pages a removed row shifts, are dropped instead of the whole cache. Both the
+ * {@link IndexedCaffeineCache} and an indexed {@link TwoLevelCache} find those entries through their
+ * row index; any other cache is cleared.
+ */
+public final class CachedPages {
+
+    private CachedPages() {
+    }
+
+    /** For rows that changed in place: evicts the entries showing any of them. */
+    public static void evictRows(CacheManager cacheManager, String cacheName, Collection<?> rowIds) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache instanceof RowIndexedCache indexed) {
+            indexed.evictRows(rowIds);
+        } else if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * For a row removed at {@code position} (0 for the first row in the cache's order): every later
+     * row moves up one place, so each {@code page:size} page ending after it is evicted.
+     */
+    public static void evictFrom(CacheManager cacheManager, String cacheName, long position) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache instanceof RowIndexedCache indexed) {
+            indexed.evictFrom(position);
+        } else if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    static List<?> rowsOf(Object value) {
+        if (value instanceof Page<?> page) {
+            return page.getContent();
+        }
+        return value instanceof List<?> list ? list : List.of();
+    }
+
+    // True when the page:size key covers rows after position; keys of another shape are always stale
+    static boolean endsAfter(Object key, long position) {
+        String text = String.valueOf(key);
+        int colon = text.indexOf(':');
+        try {
+            long page = Long.parseLong(text.substring(0, colon));
+            long size = Long.parseLong(text.substring(colon + 1));
+            return (page + 1) * size > position;
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+}
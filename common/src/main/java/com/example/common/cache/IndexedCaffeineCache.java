@@ -0,0 +1,130 @@
+package com.example.common.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * A {@link CaffeineCache} of pages or lists that indexes the rows of every entry it stores, for
+ * {@link RowIndexedCache} evictions without scanning the cached values. Entries are only written
+ * through this class, so it must not be given a loader.
+ */
+public class IndexedCaffeineCache extends CaffeineCache implements RowIndexedCache {
+
+    private final Function<Object, ?> rowId;
+    // Row id -> keys of the entries holding it; only changed inside compute, so a key is never lost
+    // to a concurrent update of the same row
+    private final Map<Object, Set<Object>> keysByRow;
+
+    public IndexedCaffeineCache(String name, Caffeine<Object, Object> builder, Function<Object, ?> rowId) {
+        this(name, builder, rowId, new ConcurrentHashMap<>());
+    }
+
+    // The eviction listener needs the index before the cache exists, so it is created first
+    private IndexedCaffeineCache(String name, Caffeine<Object, Object> builder, Function<Object, ?> rowId,
+                                 Map<Object, Set<Object>> keysByRow) {
+        super(name, builder.evictionListener((key, value, cause) -> unindex(keysByRow, rowId, key, value)).build());
+        this.rowId = rowId;
+        this.keysByRow = keysByRow;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        getNativeCache().asMap().compute(key, (k, old) -> {
+            unindex(keysByRow, rowId, k, old);
+            index(k, stored);
+            return stored;
+        });
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        Object[] existing = new Object[1];
+        getNativeCache().asMap().compute(key, (k, old) -> {
+            if (old != null) {
+                existing[0] = old;
+                return old;
+            }
+            index(k, stored);
+            return stored;
+        });
+        return existing[0] != null ? toValueWrapper(existing[0]) : null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictIfPresent(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean[] removed = new boolean[1];
+        getNativeCache().asMap().computeIfPresent(key, (k, old) -> {
+            unindex(keysByRow, rowId, k, old);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public void clear() {
+        // Index first: an entry written in between is dropped with the rest
+        keysByRow.clear();
+        getNativeCache().invalidateAll();
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean notEmpty = !getNativeCache().asMap().isEmpty();
+        clear();
+        return notEmpty;
+    }
+
+    @Override
+    public void evictRows(Collection<?> rowIds) {
+        for (Object id : rowIds) {
+            Set<Object> keys = keysByRow.get(id);
+            if (keys != null) {
+                Set.copyOf(keys).forEach(this::evict);
+            }
+        }
+    }
+
+    @Override
+    public void evictFrom(long position) {
+        Set.copyOf(getNativeCache().asMap().keySet()).stream()
+                .filter(key -> CachedPages.endsAfter(key, position))
+                .forEach(this::evict);
+    }
+
+    private void index(Object key, Object value) {
+        for (Object row : CachedPages.rowsOf(value)) {
+            keysByRow.compute(rowId.apply(row), (id, keys) -> {
+                Set<Object> updated = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                updated.add(key);
+                return updated;
+            });
+        }
+    }
+
+    private static void unindex(Map<Object, Set<Object>> keysByRow, Function<Object, ?> rowId, Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        for (Object row : CachedPages.rowsOf(value)) {
+            keysByRow.computeIfPresent(rowId.apply(row), (id, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+}
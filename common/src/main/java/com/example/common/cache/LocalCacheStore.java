@@ -0,0 +1,124 @@
+package com.example.common.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * In-process stand-in for the shared store ({@code cache.l2.type=local}), for tests and single-node
+ * runs: it exercises the serialization and two-level code paths without a Redis server. There are no
+ * other nodes, so invalidations are not sent anywhere.
+ */
+public class LocalCacheStore implements SharedCacheStore {
+
+    private record Entry(byte[] value, long ttlNanos) {
+    }
+
+    private record SetEntry(Set<String> members, long ttlNanos) {
+    }
+
+    private final Cache<String, Entry> entries;
+    private final Cache<String, SetEntry> sets;
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    public LocalCacheStore(long maxSize) {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        sets = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, SetEntry>() {
+                    @Override
+                    public long expireAfterCreate(String key, SetEntry entry, long currentTime) {
+                        return entry.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, SetEntry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, SetEntry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public byte[] get(String cacheName, String key) {
+        Entry entry = entries.getIfPresent(id(cacheName, key));
+        return entry != null ? entry.value() : null;
+    }
+
+    @Override
+    public void put(String cacheName, String key, byte[] value, Duration ttl) {
+        entries.put(id(cacheName, key), new Entry(value, ttl.toNanos()));
+    }
+
+    @Override
+    public void evict(String cacheName, String key) {
+        entries.invalidate(id(cacheName, key));
+        sets.invalidate(id(cacheName, key));
+    }
+
+    @Override
+    public void addToSet(String cacheName, String key, String member, Duration ttl) {
+        sets.asMap().compute(id(cacheName, key), (id, entry) -> {
+            Set<String> members = entry != null ? entry.members() : ConcurrentHashMap.newKeySet();
+            members.add(member);
+            return new SetEntry(members, ttl.toNanos());
+        });
+    }
+
+    @Override
+    public Set<String> members(String cacheName, String key) {
+        SetEntry entry = sets.getIfPresent(id(cacheName, key));
+        return entry != null ? Set.copyOf(entry.members()) : Set.of();
+    }
+
+    @Override
+    public long generation(String cacheName) {
+        return generations.getOrDefault(cacheName, 0L);
+    }
+
+    @Override
+    public long nextGeneration(String cacheName) {
+        return generations.merge(cacheName, 1L, Long::sum);
+    }
+
+    @Override
+    public void publishInvalidation(String cacheName, String key) {
+    }
+
+    @Override
+    public void onInvalidation(BiConsumer<String, String> listener) {
+    }
+
+    private static String id(String cacheName, String key) {
+        return cacheName + "\n" + key;
+    }
+}
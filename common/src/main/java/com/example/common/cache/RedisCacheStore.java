@@ -0,0 +1,114 @@
+package com.example.common.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
+
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Redis-backed shared store ({@code cache.l2.type=redis}). Entries are stored as
+ * {@code <prefix><cache>:<key>} with the cache's TTL and the generation as
+ * {@code <prefix><cache>:generation}, and sets as Redis sets under the same naming; invalidations go over pub/sub on
+ * {@code <prefix>invalidations}, tagged with this node's id so a node ignores its own messages.
+ */
+public class RedisCacheStore implements SharedCacheStore {
+
+    private final RedisTemplate<String, byte[]> redis;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final String prefix;
+    private final ChannelTopic channel;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public RedisCacheStore(RedisConnectionFactory connectionFactory, String prefix) {
+        this.prefix = prefix;
+        this.channel = new ChannelTopic(prefix + "invalidations");
+
+        redis = new RedisTemplate<>();
+        redis.setConnectionFactory(connectionFactory);
+        redis.setKeySerializer(RedisSerializer.string());
+        redis.setValueSerializer(RedisSerializer.byteArray());
+        redis.afterPropertiesSet();
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @Override
+    public byte[] get(String cacheName, String key) {
+        return redis.opsForValue().get(id(cacheName, key));
+    }
+
+    @Override
+    public void put(String cacheName, String key, byte[] value, Duration ttl) {
+        redis.opsForValue().set(id(cacheName, key), value, ttl);
+    }
+
+    @Override
+    public void evict(String cacheName, String key) {
+        redis.delete(id(cacheName, key));
+    }
+
+    @Override
+    public void addToSet(String cacheName, String key, String member, Duration ttl) {
+        String id = id(cacheName, key);
+        redis.opsForSet().add(id, member.getBytes(StandardCharsets.UTF_8));
+        redis.expire(id, ttl);
+    }
+
+    @Override
+    public Set<String> members(String cacheName, String key) {
+        Set<byte[]> members = redis.opsForSet().members(id(cacheName, key));
+        if (members == null) {
+            return Set.of();
+        }
+        return members.stream()
+                .map(member -> new String(member, StandardCharsets.UTF_8))
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public long generation(String cacheName) {
+        byte[] value = redis.opsForValue().get(id(cacheName, "generation"));
+        return value != null ? Long.parseLong(new String(value, StandardCharsets.UTF_8)) : 0;
+    }
+
+    @Override
+    public long nextGeneration(String cacheName) {
+        return redis.opsForValue().increment(id(cacheName, "generation"));
+    }
+
+    @Override
+    public void publishInvalidation(String cacheName, String key) {
+        String message = nodeId + "\n" + cacheName + (key != null ? "\n" + key : "");
+        redis.convertAndSend(channel.getTopic(), message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void onInvalidation(BiConsumer<String, String> listener) {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+            if (parts.length < 2 || parts[0].equals(nodeId)) {
+                return;
+            }
+            listener.accept(parts[1], parts.length == 3 ? parts[2] : null);
+        }, channel);
+    }
+
+    public void close() throws Exception {
+        listenerContainer.destroy();
+    }
+
+    private String id(String cacheName, String key) {
+        return prefix + cacheName + ":" + key;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.common.cache;
+
+import java.util.Collection;
+
+/**
+ * A cache of pages or lists of rows that remembers which entries hold each row, so a write can evict
+ * just those entries. Entries are keyed by row id as given by the cache's row id function; page
+ * caches are keyed {@code page:size}.
+ */
+public interface RowIndexedCache {
+
+    /** Evicts every entry holding one of the given rows. */
+    void evictRows(Collection<?> rowIds);
+
+    /** Evicts the {@code page:size} entries that end after {@code position}, i.e. the pages a removed row shifts. */
+    void evictFrom(long position);
+}
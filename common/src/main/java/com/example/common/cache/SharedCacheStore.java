@@ -0,0 +1,38 @@
+package com.example.common.cache;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Second cache level shared by all replicas of a service, behind each node's Caffeine L1 (see
+ * {@link TwoLevelCache}). It also carries the invalidation messages that keep the L1 copies coherent.
+ * Values are serialized; keys are the string form of the Spring cache keys.
+ */
+public interface SharedCacheStore {
+
+    byte[] get(String cacheName, String key);
+
+    void put(String cacheName, String key, byte[] value, Duration ttl);
+
+    /** Drops a value or a set. */
+    void evict(String cacheName, String key);
+
+    /** Adds {@code member} to the set stored at {@code key} and restarts the set's TTL. */
+    void addToSet(String cacheName, String key, String member, Duration ttl);
+
+    /** The members of the set stored at {@code key}, empty when there is none. */
+    Set<String> members(String cacheName, String key);
+
+    /** The cache's current generation, which {@link TwoLevelCache} puts in front of every key; 0 until first cleared. */
+    long generation(String cacheName);
+
+    /** Moves the cache to a new generation, so the entries written before are no longer read. */
+    long nextGeneration(String cacheName);
+
+    /** Tells the other nodes to drop {@code key} from their L1, or the whole cache when {@code key} is null. */
+    void publishInvalidation(String cacheName, String key);
+
+    /** Registers the handler for invalidations published by other nodes, called with (cacheName, key). */
+    void onInvalidation(BiConsumer<String, String> listener);
+}
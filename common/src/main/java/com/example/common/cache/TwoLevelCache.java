@@ -0,0 +1,238 @@
+package com.example.common.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.domain.Page;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * A Caffeine L1 in front of the {@link SharedCacheStore}. Reads go L1, then L2, then the cached
+ * method, so a cold replica fills from L2 instead of MySQL, and the loaded value is written to L2 and
+ * L1. Updates are evictions: they drop the key from L2 and L1 and are announced so the other nodes
+ * drop their L1 copy too. Read-through fills are not announced.
+ * <p>
+ * L2 keys carry the cache's generation, so {@link #clear()} moves to a new generation instead of
+ * deleting every key; the old entries are no longer read and expire with their TTL.
+ * <p>
+ * Given a row id function, the cache also keeps, in the shared store, the keys of the entries holding
+ * each row and the keys of all cached pages, so {@link RowIndexedCache} evictions reach the entries
+ * any node cached without reading them back.
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache implements RowIndexedCache {
+
+    // Only the services' own types may be read back from the shared store
+    private static final ObjectInputFilter ALLOWED_TYPES = ObjectInputFilter.Config.createFilter(
+            "java.base/*;com.example.**;org.springframework.data.domain.**;org.springframework.cache.support.NullValue;!*");
+    // Shared-store sets of the index, next to the entries of the same generation
+    private static final String ROWS = "rows:";
+    private static final String PAGES = "pages";
+
+    private final String name;
+    private final Cache<Object, Object> local;
+    private final SharedCacheStore shared;
+    private final Duration ttl;
+    private final Function<Object, ?> rowId;
+    // Current L2 generation, read from the shared store on first use and after another node clears
+    // the cache; -1 when it has to be read again. Guarded by this cache's monitor.
+    private long generation = -1;
+    // Bumped by every invalidation from another node; a value read from L2 is only copied into L1 if
+    // no invalidation arrived meanwhile, so a late copy cannot undo the invalidation
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+
+    /**
+     * {@code loader}, when set, serves the L1's refresh-after-write; refreshed values are written
+     * through to L2 so cold nodes see them too. {@code rowId}, when set, indexes the rows of pages
+     * and lists; a cache is given one or the other.
+     */
+    public TwoLevelCache(String name, Caffeine<Object, Object> localBuilder, CacheLoader<Object, Object> loader,
+                         Function<Object, ?> rowId, SharedCacheStore shared, Duration ttl, MeterRegistry meterRegistry) {
+        super(true);
+        this.name = name;
+        this.shared = shared;
+        this.local = loader != null
+                ? localBuilder.build(key -> {
+                    Object value = loader.load(key);
+                    if (value != null) {
+                        shared.put(name, sharedKey(key), serialize(value), ttl);
+                    }
+                    return value;
+                })
+                : localBuilder.build();
+        this.ttl = ttl;
+        this.rowId = rowId;
+        this.sharedHits = meterRegistry.counter("cache.l2.gets", "cache", name, "result", "hit");
+        this.sharedMisses = meterRegistry.counter("cache.l2.gets", "cache", name, "result", "miss");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Cache<Object, Object> getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        long seen = invalidations.get();
+        byte[] bytes = shared.get(name, sharedKey(key));
+        value = bytes != null ? deserialize(bytes) : null;
+        if (value == null) {
+            sharedMisses.increment();
+            return null;
+        }
+        sharedHits.increment();
+        if (invalidations.get() == seen) {
+            local.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        try {
+            T value = valueLoader.call();
+            put(key, value);
+            return value;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    // Only called with a freshly loaded value; the services evict on update instead of putting, so no
+    // other node can hold a different copy that would need an invalidation
+    @Override
+    public void put(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        if (rowId != null) {
+            // Indexed before it is stored, so an eviction never misses an entry that can be read
+            index(key, stored);
+        }
+        shared.put(name, sharedKey(key), serialize(stored), ttl);
+        local.put(key, stored);
+    }
+
+    @Override
+    public void evict(Object key) {
+        shared.evict(name, sharedKey(key));
+        local.invalidate(key);
+        shared.publishInvalidation(name, keyOf(key));
+    }
+
+    @Override
+    public void clear() {
+        long next = shared.nextGeneration(name);
+        synchronized (this) {
+            generation = next;
+        }
+        local.invalidateAll();
+        shared.publishInvalidation(name, null);
+    }
+
+    @Override
+    public void evictRows(Collection<?> rowIds) {
+        for (Object id : rowIds) {
+            shared.members(name, sharedKey(ROWS + id)).forEach(this::evict);
+        }
+    }
+
+    @Override
+    public void evictFrom(long position) {
+        shared.members(name, sharedKey(PAGES)).stream()
+                .filter(key -> CachedPages.endsAfter(key, position))
+                .forEach(this::evict);
+    }
+
+    private void index(Object key, Object value) {
+        String member = keyOf(key);
+        for (Object row : CachedPages.rowsOf(value)) {
+            shared.addToSet(name, sharedKey(ROWS + rowId.apply(row)), member, ttl);
+        }
+        if (value instanceof Page<?>) {
+            shared.addToSet(name, sharedKey(PAGES), member, ttl);
+        }
+    }
+
+    /** Applies an invalidation published by another node; {@code key} is null for the whole cache. */
+    public void invalidateLocal(String key) {
+        invalidations.incrementAndGet();
+        if (key == null) {
+            synchronized (this) {
+                generation = -1;
+            }
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    private String sharedKey(Object key) {
+        return currentGeneration() + ":" + keyOf(key);
+    }
+
+    // Held while reading the store, so an invalidation from a concurrent clear cannot be overwritten
+    // by a generation read before it
+    private synchronized long currentGeneration() {
+        if (generation < 0) {
+            generation = shared.generation(name);
+        }
+        return generation;
+    }
+
+    // Cache keys in the services are strings (IDs, "page:size"), so their string form is the L2 key
+    private static String keyOf(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static byte[] serialize(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize cache value", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // A value written by an older build may no longer deserialize; treat it as a miss
+    private static Object deserialize(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            in.setObjectInputFilter(ALLOWED_TYPES);
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.common.client;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+
+/**
+ * Shared HTTP client for all inter-service calls: a pooled, keep-alive Apache HttpClient with
+ * per-host connection limits and timeouts, or the JDK client when {@code http.client.http2} is set.
+ * Pool usage is published as {@code httpcomponents.httpclient.pool.*} and the time spent waiting
+ * for a pooled connection as {@code http.client.pool.wait}.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    private static final String POOL_NAME = "inter-service";
+
+    @Value("${http.client.max-total:200}")
+    private int maxTotal;
+
+    @Value("${http.client.max-per-route:50}")
+    private int maxPerRoute;
+
+    @Value("${http.client.connect-timeout:1000}")
+    private long connectTimeout;
+
+    @Value("${http.client.read-timeout:${monitor.timeout:2000}}")
+    private long readTimeout;
+
+    @Value("${http.client.connection-request-timeout:1000}")
+    private long connectionRequestTimeout;
+
+    @Value("${http.client.idle-timeout:30000}")
+    private long idleTimeout;
+
+    @Value("${http.client.http2:false}")
+    private boolean http2;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager connectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = new TimedConnectionManager(meterRegistry,
+                Timer.builder("http.client.pool.wait")
+                        .description("Time spent waiting to lease a pooled connection")
+                        .tag("pool", POOL_NAME)
+                        .register(meterRegistry));
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build());
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeout))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeout))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient) {
+        ClientHttpRequestFactory requestFactory = http2 ? http2RequestFactory() : new HttpComponentsClientHttpRequestFactory(httpClient);
+        return builder
+                .requestFactory(() -> requestFactory)
+                .build();
+    }
+
+    // The JDK client negotiates HTTP/2 (h2c upgrade on plain http) and multiplexes requests over
+    // one connection per host, so the pool settings above do not apply in this mode.
+    private ClientHttpRequestFactory http2RequestFactory() {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(client);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeout));
+        return requestFactory;
+    }
+
+    private static class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+
+        private final MeterRegistry meterRegistry;
+        private final Timer leaseTimer;
+
+        TimedConnectionManager(MeterRegistry meterRegistry, Timer leaseTimer) {
+            this.meterRegistry = meterRegistry;
+            this.leaseTimer = leaseTimer;
+        }
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            LeaseRequest leaseRequest = super.lease(id, route, requestTimeout, state);
+            return new LeaseRequest() {
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    Timer.Sample sample = Timer.start(meterRegistry);
+                    try {
+                        return leaseRequest.get(timeout);
+                    } finally {
+                        sample.stop(leaseTimer);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return leaseRequest.cancel();
+                }
+            };
+        }
+    }
+}
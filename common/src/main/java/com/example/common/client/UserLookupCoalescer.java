@@ -0,0 +1,105 @@
+package com.example.common.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Collects single-user lookups issued within a short window and resolves them with one batch call.
+ * The first caller of a window waits for it to close and then performs the lookup for everyone;
+ * a batch that reaches {@code maxBatchSize} is sent immediately by the caller that filled it.
+ * {@code U} is the calling service's user DTO; {@code idOf} reads its ID.
+ */
+public class UserLookupCoalescer<U> {
+
+    private final Function<List<String>, List<U>> batchLookup;
+    private final Function<U, String> idOf;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final Object lock = new Object();
+    private Batch<U> open;
+
+    public UserLookupCoalescer(Function<List<String>, List<U>> batchLookup, Function<U, String> idOf,
+                               long windowMillis, int maxBatchSize) {
+        this.batchLookup = batchLookup;
+        this.idOf = idOf;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public U get(String userId) {
+        Batch<U> batch;
+        CompletableFuture<U> future;
+        boolean leader = false;
+        boolean full = false;
+
+        synchronized (lock) {
+            if (open == null) {
+                open = new Batch<>();
+                leader = true;
+            }
+            batch = open;
+            future = batch.requests.get(userId);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                batch.requests.put(userId, future);
+                if (batch.requests.size() >= maxBatchSize) {
+                    open = null;
+                    full = true;
+                }
+            }
+        }
+
+        if (full) {
+            execute(batch);
+        } else if (leader) {
+            LockSupport.parkNanos(windowNanos);
+            boolean flush;
+            synchronized (lock) {
+                flush = open == batch;
+                if (flush) {
+                    open = null;
+                }
+            }
+            if (flush) {
+                execute(batch);
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void execute(Batch<U> batch) {
+        try {
+            Map<String, U> users = new HashMap<>();
+            for (U user : batchLookup.apply(new ArrayList<>(batch.requests.keySet()))) {
+                users.put(idOf.apply(user), user);
+            }
+            batch.requests.forEach((userId, future) -> {
+                U user = users.get(userId);
+                if (user != null) {
+                    future.complete(user);
+                } else {
+                    future.completeExceptionally(new RuntimeException("User not found"));
+                }
+            });
+        } catch (RuntimeException e) {
+            batch.requests.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private static final class Batch<U> {
+        private final Map<String, CompletableFuture<U>> requests = new HashMap<>();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.common.log;
+
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-capacity ring of log entries shared by concurrent writers without locks. Every entry takes a
+ * ticket (its sequence number) from one counter and owns slot {@code ticket % capacity}; the slot's
+ * {@code published} value works like a seqlock: minus the ticket while the slot is written, the ticket
+ * once it is complete. Slots are preallocated and hold only the raw time, a level ordinal and the
+ * message, so logging allocates nothing; timestamps are formatted when the buffer is read.
+ */
+public class LogRingBuffer {
+
+    private static final String[] LEVELS = {"DEBUG", "INFO", "WARN", "ERROR"};
+
+    private final int capacity;
+    private final int mask;
+    private final long firstTicket;
+    private final AtomicLong sequence;
+
+    private final AtomicLongArray published;
+    private final long[] epochMillis;
+    private final int[] levels;
+    private final String[] otherLevels;
+    private final String[] messages;
+
+    public LogRingBuffer(int requestedCapacity, long initialSequence) {
+        capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        mask = capacity - 1;
+        firstTicket = initialSequence + 1;
+        sequence = new AtomicLong(initialSequence);
+        published = new AtomicLongArray(capacity);
+        epochMillis = new long[capacity];
+        levels = new int[capacity];
+        otherLevels = new String[capacity];
+        messages = new String[capacity];
+    }
+
+    public void add(String level, String message) {
+        long ticket = sequence.incrementAndGet();
+        int slot = (int) (ticket & mask);
+
+        // Wait for the writer of the previous lap to finish with this slot, then claim it. This only
+        // waits if that writer was preempted mid-write a full lap ago; yield so it can get the CPU back.
+        long previous = ticket - capacity >= firstTicket ? ticket - capacity : 0;
+        for (int spins = 0; !published.compareAndSet(slot, previous, -ticket); spins++) {
+            if (spins < 64) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+
+        epochMillis[slot] = System.currentTimeMillis();
+        int ordinal = ordinal(level);
+        levels[slot] = ordinal;
+        otherLevels[slot] = ordinal < 0 ? level : null;
+        messages[slot] = message;
+
+        published.set(slot, ticket);
+    }
+
+    public long lastSequence() {
+        return sequence.get();
+    }
+
+    /**
+     * Entries with a sequence number above {@code since}, oldest first. Stops at the first entry that is
+     * still being written, so a caller resuming from the last returned sequence never skips one.
+     */
+    public List<Map<String, String>> read(long since) {
+        long last = sequence.get();
+        long start = Math.max(Math.max(since + 1, firstTicket), last - capacity + 1);
+        List<Map<String, String>> entries = new ArrayList<>((int) Math.max(0, last - start + 1));
+
+        for (long ticket = start; ticket <= last; ticket++) {
+            int slot = (int) (ticket & mask);
+            long state = published.get(slot);
+            if (state > ticket) {
+                continue;
+            }
+            if (state != ticket) {
+                break;
+            }
+
+            long millis = epochMillis[slot];
+            int ordinal = levels[slot];
+            String otherLevel = otherLevels[slot];
+            String message = messages[slot];
+
+            // Discard the copy if a writer of a later lap took the slot while it was being read
+            VarHandle.acquireFence();
+            if (published.get(slot) != ticket) {
+                continue;
+            }
+
+            Map<String, String> entry = new LinkedHashMap<>();
+            entry.put("seq", String.valueOf(ticket));
+            entry.put("ts", LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault())
+                    .format(DateTimeFormatter.ISO_DATE_TIME));
+            entry.put("level", ordinal >= 0 ? LEVELS[ordinal] : otherLevel);
+            entry.put("msg", message);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static int ordinal(String level) {
+        for (int i = 0; i < LEVELS.length; i++) {
+            if (LEVELS[i].equals(level)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.common.security;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Verifies bearer tokens with a parser built once at startup. Verified tokens are cached for
+ * {@code jwt.cache.ttl} seconds or until they expire, whichever comes first, so repeated requests
+ * with the same token skip the signature check and claim parsing. Tokens are issued by the Identity
+ * service, signed with the shared {@code jwt.secret}.
+ */
+@Service
+public class JwtService {
+
+    private record Verified(Authentication authentication, long lifetimeNanos) {
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Value("${jwt.cache.max-size:100000}")
+    private long cacheMaxSize;
+
+    @Value("${jwt.cache.ttl:300}")
+    private long cacheTtl;
+
+    private JwtParser parser;
+    private Cache<String, Verified> verified;
+
+    public JwtService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        parser = Jwts.parserBuilder()
+                .setSigningKey(secret.getBytes())
+                .build();
+        verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, Verified>() {
+                    @Override
+                    public long expireAfterCreate(String token, Verified value, long currentTime) {
+                        return value.lifetimeNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Verified value, long currentTime, long currentDuration) {
+                        return value.lifetimeNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Verified value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        Gauge.builder("auth.jwt.cache.size", verified, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    /** The authentication for a valid token, or null when it has no subject; throws when it is invalid. */
+    public Authentication authenticate(String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "rejected";
+        try {
+            Verified cached = verified.getIfPresent(token);
+            if (cached != null) {
+                outcome = "cached";
+                return cached.authentication();
+            }
+
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            outcome = "verified";
+            if (claims.getSubject() == null) {
+                return null;
+            }
+            Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(claims.getSubject(), null, List.of());
+
+            long lifetime = TimeUnit.SECONDS.toNanos(cacheTtl);
+            if (claims.getExpiration() != null) {
+                lifetime = Math.min(lifetime,
+                        TimeUnit.MILLISECONDS.toNanos(claims.getExpiration().getTime() - System.currentTimeMillis()));
+            }
+            if (lifetime > 0) {
+                verified.put(token, new Verified(authentication, lifetime));
+            }
+            return authentication;
+        } finally {
+            sample.stop(meterRegistry.timer("auth.jwt.validate", "outcome", outcome));
+        }
+    }
+
+    public String validate(String token) {
+        Authentication authentication = authenticate(token);
+        return authentication != null ? authentication.getName() : null;
+    }
+}
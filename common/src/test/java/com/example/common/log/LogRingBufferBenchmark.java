@@ -0,0 +1,77 @@
+package com.example.common.log;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Log calls from 16 writer threads: {@link LogRingBuffer} against the queue-backed LogService it
+ * replaced, kept below as {@link QueueLog}. Run with {@code mvn -Pbench test -Dbench=LogRingBufferBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class LogRingBufferBenchmark {
+
+    private static final String MESSAGE = "Match created: 3f2c9a1e-7b44-4d0e-9c51-2a8e6f0d1b73";
+
+    private LogRingBuffer ringBuffer;
+    private QueueLog queueLog;
+
+    @Setup
+    public void setUp() {
+        // Each at its service default: logs.buffer.capacity for the ring, the old hard-coded limit for the queue
+        ringBuffer = new LogRingBuffer(1024, 0);
+        queueLog = new QueueLog();
+    }
+
+    @Benchmark
+    public void ringBuffer() {
+        ringBuffer.add("INFO", MESSAGE);
+    }
+
+    @Benchmark
+    public void queue() {
+        queueLog.log("INFO", MESSAGE);
+    }
+
+    // LogService as it was before the ring buffer
+    static class QueueLog {
+        private static final int MAX_LOGS = 100;
+
+        private final Queue<Map<String, String>> logs = new ConcurrentLinkedQueue<>();
+
+        void log(String level, String message) {
+            Map<String, String> logEntry = new HashMap<>();
+            logEntry.put("ts", LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
+            logEntry.put("level", level);
+            logEntry.put("msg", message);
+
+            logs.offer(logEntry);
+
+            if (logs.size() > MAX_LOGS) {
+                logs.poll();
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.common.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class LogRingBufferTest {
+
+    @Test
+    void readsEntriesOldestFirstWithTheirSequenceNumbers() {
+        LogRingBuffer buffer = new LogRingBuffer(8, 1000);
+        buffer.add("INFO", "first");
+        buffer.add("ERROR", "second");
+        buffer.add("TRACE", "third");
+
+        List<Map<String, String>> entries = buffer.read(0);
+
+        assertEquals(3, entries.size());
+        assertEntry(entries.get(0), 1001, "INFO", "first");
+        assertEntry(entries.get(1), 1002, "ERROR", "second");
+        // Levels outside the known set are kept as given
+        assertEntry(entries.get(2), 1003, "TRACE", "third");
+        assertEquals(1003, buffer.lastSequence());
+    }
+
+    @Test
+    void resumesAfterTheLastSequenceRead() {
+        LogRingBuffer buffer = new LogRingBuffer(8, 0);
+        buffer.add("INFO", "a");
+        buffer.add("INFO", "b");
+        long since = buffer.lastSequence();
+        buffer.add("INFO", "c");
+
+        List<Map<String, String>> entries = buffer.read(since);
+
+        assertEquals(1, entries.size());
+        assertEntry(entries.get(0), 3, "INFO", "c");
+        assertTrue(buffer.read(buffer.lastSequence()).isEmpty());
+    }
+
+    @Test
+    void keepsOnlyTheLastLapWhenWritersOverwriteOldEntries() {
+        LogRingBuffer buffer = new LogRingBuffer(4, 0);
+        for (int i = 1; i <= 10; i++) {
+            buffer.add("INFO", "m" + i);
+        }
+
+        List<Map<String, String>> entries = buffer.read(0);
+
+        assertEquals(4, entries.size());
+        for (int i = 0; i < 4; i++) {
+            assertEntry(entries.get(i), 7 + i, "INFO", "m" + (7 + i));
+        }
+        // A cursor that fell more than a lap behind resumes at the oldest entry still held
+        assertEquals("7", buffer.read(2).get(0).get("seq"));
+        assertEquals(2, buffer.read(8).size());
+    }
+
+    @Test
+    void roundsTheCapacityUpToAPowerOfTwo() {
+        LogRingBuffer buffer = new LogRingBuffer(5, 0);
+        for (int i = 1; i <= 20; i++) {
+            buffer.add("INFO", "m" + i);
+        }
+
+        assertEquals(8, buffer.read(0).size());
+    }
+
+    @Test
+    void concurrentWritersLapTheRingWithoutTearingEntries() throws Exception {
+        int writers = 8;
+        int perWriter = 20_000;
+        LogRingBuffer buffer = new LogRingBuffer(64, 0);
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                String level = w % 2 == 0 ? "INFO" : "WARN";
+                String prefix = "writer" + w + "-" + level + "-";
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perWriter; i++) {
+                        buffer.add(level, prefix + i);
+                    }
+                    return null;
+                }));
+            }
+            // Reads while the writers lap the ring: every entry returned must be whole and in order
+            Future<Integer> reader = executor.submit(() -> {
+                start.await();
+                int reads = 0;
+                while (!done.get()) {
+                    assertConsistent(buffer.read(0));
+                    reads++;
+                }
+                return reads;
+            });
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            done.set(true);
+            assertTrue(reader.get(30, TimeUnit.SECONDS) > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long total = (long) writers * perWriter;
+        assertEquals(total, buffer.lastSequence());
+        List<Map<String, String>> entries = buffer.read(0);
+        assertEquals(64, entries.size());
+        assertEquals(String.valueOf(total - 63), entries.get(0).get("seq"));
+        assertEquals(String.valueOf(total), entries.get(63).get("seq"));
+        assertConsistent(entries);
+    }
+
+    // Sequence numbers increase, and each message still carries the level its writer logged it with
+    private static void assertConsistent(List<Map<String, String>> entries) {
+        long previous = 0;
+        for (Map<String, String> entry : entries) {
+            long seq = Long.parseLong(entry.get("seq"));
+            assertTrue(seq > previous, "sequence " + seq + " after " + previous);
+            previous = seq;
+            assertTrue(entry.get("msg").contains("-" + entry.get("level") + "-"), entry.toString());
+        }
+    }
+
+    private static void assertEntry(Map<String, String> entry, long seq, String level, String message) {
+        assertEquals(String.valueOf(seq), entry.get("seq"));
+        assertEquals(level, entry.get("level"));
+        assertEquals(message, entry.get("msg"));
+        assertTrue(entry.get("ts") != null && !entry.get("ts").isEmpty());
+    }
+}
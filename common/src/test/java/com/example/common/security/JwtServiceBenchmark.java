@@ -0,0 +1,101 @@
+package com.example.common.security;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Per-request authentication cost of a bearer token: the old path, which built a parser and derived
+ * the key for every request, against {@link JwtService} with its prebuilt parser, both on a cache miss
+ * and on a cached token. Run with {@code mvn -Pbench test -Dbench=JwtServiceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-long-enough-for-hs256";
+
+    private AnnotationConfigApplicationContext cachingContext;
+    private AnnotationConfigApplicationContext uncachedContext;
+    private JwtService cachingService;
+    private JwtService uncachedService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingContext = context(Map.of("jwt.secret", SECRET));
+        // A zero TTL keeps every token out of the cache, so each call verifies the signature
+        uncachedContext = context(Map.of("jwt.secret", SECRET, "jwt.cache.ttl", "0"));
+        cachingService = cachingContext.getBean(JwtService.class);
+        uncachedService = uncachedContext.getBean(JwtService.class);
+        // Signed the way the Identity service's JwtIssuer signs login tokens
+        token = Jwts.builder()
+                .setSubject("3f2c9a1e-7b44-4d0e-9c51-2a8e6f0d1b73")
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact();
+    }
+
+    @TearDown
+    public void tearDown() {
+        cachingContext.close();
+        uncachedContext.close();
+    }
+
+    // JwtService.validate and the authentication built by JwtAuthenticationFilter before the fast path
+    @Benchmark
+    public Authentication parserPerRequest() {
+        String userId = Jwts.parserBuilder()
+                .setSigningKey(SECRET.getBytes())
+                .build()
+                .parseClaimsJws(token)
+                .getBody()
+                .getSubject();
+        return new UsernamePasswordAuthenticationToken(userId, null, new ArrayList<>());
+    }
+
+    @Benchmark
+    public Authentication prebuiltParser() {
+        return uncachedService.authenticate(token);
+    }
+
+    @Benchmark
+    public Authentication cachedToken() {
+        return cachingService.authenticate(token);
+    }
+
+    private static AnnotationConfigApplicationContext context(Map<String, Object> properties) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.registerBean(PropertySourcesPlaceholderConfigurer.class);
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.registerBean(JwtService.class);
+        context.refresh();
+        return context;
+    }
+}
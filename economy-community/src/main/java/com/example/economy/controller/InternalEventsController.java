@@ -0,0 +1,21 @@
+package com.example.economy.controller;
+
+import com.example.economy.service.IdentityClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+@RequestMapping("/internal/events")
+@RequiredArgsConstructor
+public class InternalEventsController {
+
+    private final IdentityClient identityClient;
+
+    @PostMapping("/users-changed")
+    public ResponseEntity<Void> usersChanged(@RequestBody List<String> userIds) {
+        identityClient.invalidateUsers(userIds);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.economy.controller;
 
+import com.example.economy.dto.FeedPageDTO;
 import com.example.economy.dto.PostDTO;
 import com.example.economy.entity.Post;
+import com.example.economy.service.LikeCounter;
 import com.example.economy.service.PostService;
 import lombok.RequiredArgsConstructor;
 
@@ -17,6 +19,7 @@ import java.util.Map;
 public class PostController {
 
     private final PostService postService;
+    private final LikeCounter likeCounter;
 
     @PostMapping
     public ResponseEntity<Post> createPost(@RequestBody PostDTO dto) {
@@ -26,23 +29,35 @@ public class PostController {
 
     @GetMapping
     public ResponseEntity<Page<Post>> getAllPosts(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size) {
-        return ResponseEntity.ok(postService.getAllPosts(page, size));
+        return ResponseEntity.ok(postService.getAllPosts(page, size).map(likeCounter::withPendingLikes));
+    }
+
+    @GetMapping("/feed")
+    public ResponseEntity<FeedPageDTO> getFeed(@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+        FeedPageDTO page = postService.getFeed(cursor, size);
+        page.setItems(page.getItems().stream().map(likeCounter::withPendingLikes).toList());
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<Post>> getTrending(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(postService.getTrending(limit).stream().map(likeCounter::withPendingLikes).toList());
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Post> getPostById(@PathVariable String id) {
-        return ResponseEntity.ok(postService.getPostById(id));
+        return ResponseEntity.ok(likeCounter.withPendingLikes(postService.getPostById(id)));
     }
 
     @GetMapping("/author/{authorId}")
     public ResponseEntity<List<Post>> getAuthorPosts(@PathVariable String authorId) {
-        return ResponseEntity.ok(postService.getAuthorPosts(authorId));
+        return ResponseEntity.ok(postService.getAuthorPosts(authorId).stream().map(likeCounter::withPendingLikes).toList());
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Post> updatePost(@PathVariable String id, @RequestBody PostDTO dto) {
         Post post = postService.updatePost(id, dto);
-        return ResponseEntity.ok(post);
+        return ResponseEntity.ok(likeCounter.withPendingLikes(post));
     }
 
     @PostMapping("/{id}/like")
@@ -1,13 +1,24 @@
 package com.example.economy.controller;
 
+import com.example.economy.dto.ItemSalesDTO;
 import com.example.economy.dto.PurchaseDTO;
+import com.example.economy.dto.RevenuePointDTO;
+import com.example.economy.dto.UserSpendDTO;
 import com.example.economy.entity.Purchase;
+import com.example.economy.entity.PurchaseRollup;
+import com.example.economy.service.PurchaseExportService;
+import com.example.economy.service.PurchaseRollups;
 import com.example.economy.service.PurchaseService;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -16,6 +27,8 @@ import java.util.List;
 public class PurchaseController {
 
     private final PurchaseService purchaseService;
+    private final PurchaseExportService purchaseExportService;
+    private final PurchaseRollups purchaseRollups;
 
     @PostMapping
     public ResponseEntity<Purchase> createPurchase(@RequestBody PurchaseDTO dto) {
@@ -23,11 +36,62 @@ public class PurchaseController {
         return ResponseEntity.ok(purchase);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<Purchase>> createPurchases(@RequestBody List<PurchaseDTO> dtos) {
+        return ResponseEntity.ok(purchaseService.createPurchases(dtos));
+    }
+
     @GetMapping
     public ResponseEntity<Page<Purchase>> getAllPurchases(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size) {
         return ResponseEntity.ok(purchaseService.getAllPurchases(page, size));
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPurchases(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                 @RequestParam(defaultValue = "ndjson") String format,
+                                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean csv = switch (format) {
+            case "csv" -> true;
+            case "ndjson" -> false;
+            default -> throw new RuntimeException("Unsupported export format: " + format);
+        };
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        StreamingResponseBody body = out -> purchaseExportService.export(from, to, csv, gzip, out);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(csv ? "text/csv" : "application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=purchases." + format)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @GetMapping("/stats/revenue")
+    public ResponseEntity<List<RevenuePointDTO>> getRevenue(@RequestParam(required = false) String item,
+                                                            @RequestParam(defaultValue = "hour") String resolution,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        PurchaseRollup.Resolution bucket = switch (resolution) {
+            case "hour" -> PurchaseRollup.Resolution.HOUR;
+            case "day" -> PurchaseRollup.Resolution.DAY;
+            default -> throw new RuntimeException("Unsupported resolution: " + resolution);
+        };
+        return ResponseEntity.ok(purchaseRollups.getRevenue(item, bucket, from, to));
+    }
+
+    @GetMapping("/stats/top-items")
+    public ResponseEntity<List<ItemSalesDTO>> getTopItems(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(purchaseRollups.getTopItems(limit));
+    }
+
+    @GetMapping("/stats/users/{userId}")
+    public ResponseEntity<UserSpendDTO> getUserSpend(@PathVariable String userId) {
+        return ResponseEntity.ok(purchaseRollups.getUserSpend(userId));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Purchase> getPurchaseById(@PathVariable String id) {
         return ResponseEntity.ok(purchaseService.getPurchaseById(id));
@@ -37,4 +101,35 @@ public class PurchaseController {
     public ResponseEntity<List<Purchase>> getUserPurchases(@PathVariable String userId) {
         return ResponseEntity.ok(purchaseService.getUserPurchases(userId));
     }
+
+    // True when Accept-Encoding gives gzip (or, if gzip is not listed, "*") a non-zero q-value
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.length() > 2 && param.substring(0, 2).equalsIgnoreCase("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = quality;
+            } else if (coding.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        Double quality = gzip != null ? gzip : wildcard;
+        return quality != null && quality > 0;
+    }
 }
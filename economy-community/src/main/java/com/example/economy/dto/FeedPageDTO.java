@@ -0,0 +1,18 @@
+package com.example.economy.dto;
+
+import java.util.List;
+
+import com.example.economy.entity.Post;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedPageDTO {
+    private List<Post> items;
+    // Pass back as "cursor" to get the next (older) page; null on the last page
+    private String nextCursor;
+}
@@ -7,4 +7,6 @@ public class PurchaseDTO {
     private String userId;
     private String itemName;
     private Integer price;
+    // Optional; a retried request with the same key returns the original purchase instead of buying again
+    private String idempotencyKey;
 }
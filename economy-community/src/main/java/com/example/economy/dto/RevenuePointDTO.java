@@ -0,0 +1,16 @@
+package com.example.economy.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenuePointDTO {
+    private LocalDateTime bucketStart;
+    private long revenue;
+    private long purchaseCount;
+}
@@ -0,0 +1,11 @@
+package com.example.economy.dto;
+
+import lombok.Data;
+
+@Data
+public class UserDTO {
+    private String id;
+    private String username;
+    private String displayName;
+    private Integer mmr;
+}
@@ -0,0 +1,14 @@
+package com.example.economy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSpendDTO {
+    private String userId;
+    private long totalSpent;
+    private long purchaseCount;
+}
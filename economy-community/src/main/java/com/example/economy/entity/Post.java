@@ -1,6 +1,8 @@
 package com.example.economy.entity;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -18,7 +20,7 @@ import lombok.Data;
         @Index(name = "idx_posts_created_at", columnList = "created_at"),
         @Index(name = "idx_posts_likes", columnList = "likes")
 })
-public class Post {
+public class Post implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
@@ -30,8 +32,11 @@ public class Post {
     @Column(length = 1000)
     private String content;
 
+    // Only changed by LikeCounter's "likes = likes + ?" updates, so saving a post never overwrites them
+    @Column(updatable = false)
     private Integer likes = 0;
 
-    private LocalDateTime createdAt = LocalDateTime.now();
+    // MySQL keeps microseconds, so the feed cursor of a post is the same in memory and in the database
+    private LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     private LocalDateTime updatedAt = LocalDateTime.now();
 }
@@ -1,22 +1,28 @@
 package com.example.economy.entity;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Data;
 
 @Entity
 @Data
-@Table(name = "purchases", indexes = {
+@Table(name = "purchases",
+        uniqueConstraints = @UniqueConstraint(name = "uk_purchases_idempotency_key", columnNames = "idempotency_key"),
+        indexes = {
         @Index(name = "idx_purchases_user_purchased_at", columnList = "user_id, purchased_at"),
-        @Index(name = "idx_purchases_item_name", columnList = "item_name")
+        @Index(name = "idx_purchases_item_name", columnList = "item_name"),
+        @Index(name = "idx_purchases_purchased_at", columnList = "purchased_at")
 })
-public class Purchase {
+public class Purchase implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
@@ -28,4 +34,7 @@ public class Purchase {
     private Integer price;
 
     private LocalDateTime purchasedAt = LocalDateTime.now();
+
+    @Column(length = 100)
+    private String idempotencyKey;
 }
@@ -0,0 +1,47 @@
+package com.example.economy.entity;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+
+/**
+ * Revenue and purchase count of one item over an hour or a day. {@code itemName} is {@value #ALL_ITEMS}
+ * for the total over every item. Written by {@code PurchaseRollups} checkpoints only.
+ */
+@Entity
+@Data
+@Table(name = "purchase_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_purchase_rollups_bucket",
+                columnNames = {"resolution", "bucket_start", "item_name"}),
+        indexes = @Index(name = "idx_purchase_rollups_item", columnList = "item_name, resolution, bucket_start"))
+public class PurchaseRollup {
+
+    public static final String ALL_ITEMS = "*";
+
+    public enum Resolution {
+        HOUR, DAY
+    }
+
+    @Id
+    @JsonIgnore
+    private String id;
+
+    @Column(length = 8)
+    private String resolution;
+
+    private LocalDateTime bucketStart;
+
+    private String itemName;
+
+    private Long revenue;
+
+    private Long purchaseCount;
+}
@@ -0,0 +1,19 @@
+package com.example.economy.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/** Purchases made before {@code watermark} are already counted in purchase_rollups and user_spend. */
+@Entity
+@Data
+@Table(name = "purchase_rollup_checkpoints")
+public class PurchaseRollupCheckpoint {
+    @Id
+    private String name;
+
+    private LocalDateTime watermark;
+}
@@ -0,0 +1,18 @@
+package com.example.economy.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+@Entity
+@Data
+@Table(name = "user_spend")
+public class UserSpend {
+    @Id
+    private String userId;
+
+    private Long totalSpent;
+
+    private Long purchaseCount;
+}
@@ -1,11 +1,29 @@
 package com.example.economy.repository;
 
 import com.example.economy.entity.Post;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, String> {
     List<Post> findByAuthorId(String authorId);
+
+    List<Post> findByCreatedAtAfter(LocalDateTime createdAt);
+
+    @Query("select p from Post p order by p.createdAt desc, p.id desc")
+    List<Post> findLatest(Pageable pageable);
+
+    // Keyset page: posts strictly after (createdAt, id) in feed order, served from idx_posts_created_at
+    @Query("select p from Post p where p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id) "
+            + "order by p.createdAt desc, p.id desc")
+    List<Post> findOlderThan(@Param("createdAt") LocalDateTime createdAt, @Param("id") String id, Pageable pageable);
+
+    // Posts ahead of (createdAt, id) in feed order, i.e. its 0-based position in the feed
+    @Query("select count(p) from Post p where p.createdAt > :createdAt or (p.createdAt = :createdAt and p.id > :id)")
+    long countNewerThan(@Param("createdAt") LocalDateTime createdAt, @Param("id") String id);
 }
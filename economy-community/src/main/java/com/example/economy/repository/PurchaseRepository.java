@@ -4,8 +4,11 @@ import com.example.economy.entity.Purchase;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PurchaseRepository extends JpaRepository<Purchase, String> {
     List<Purchase> findByUserId(String userId);
+
+    Optional<Purchase> findByIdempotencyKey(String idempotencyKey);
 }
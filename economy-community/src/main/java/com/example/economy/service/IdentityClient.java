@@ -1,14 +1,32 @@
 package com.example.economy.service;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+
+import com.example.common.client.UserLookupCoalescer;
+import com.example.economy.dto.UserDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
+@RequiredArgsConstructor
 public class IdentityClient {
 
     @Value("${identity.service.url}")
@@ -17,7 +35,43 @@ public class IdentityClient {
     @Value("${internal.api.key}")
     private String internalApiKey;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Value("${identity.client.batch-window:2}")
+    private long batchWindow;
+
+    @Value("${identity.client.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${identity.client.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${identity.client.cache.ttl:60}")
+    private long cacheTtl;
+
+    private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private UserLookupCoalescer<UserDTO> userLookups;
+
+    // Near cache of user profiles, invalidated by Identity through /internal/events/users-changed.
+    private Cache<String, UserDTO> users;
+
+    // Ticks on every invalidation; each invalidated id remembers the tick it was invalidated at, so a lookup
+    // only skips caching the ids that were invalidated while it was in flight.
+    private final AtomicLong invalidations = new AtomicLong();
+    private Cache<String, Long> invalidatedAt;
+
+    @PostConstruct
+    void init() {
+        userLookups = new UserLookupCoalescer<>(this::getUsersByIds, UserDTO::getId, batchWindow, maxBatchSize);
+        users = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtl))
+                .build();
+        // Lookups finish well within the TTL, and a stamp only matters to lookups started before it
+        invalidatedAt = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(cacheTtl))
+                .build();
+    }
 
     private HttpHeaders createInternalHeaders() {
         HttpHeaders headers = new HttpHeaders();
@@ -25,17 +79,78 @@ public class IdentityClient {
         return headers;
     }
 
-    public Map<String, Object> getUserById(String userId) {
+    public UserDTO getUserById(String userId) {
+        UserDTO cached = users.getIfPresent(userId);
+        if (cached != null) {
+            meterRegistry.counter("identity.client.cache", "result", "hit").increment();
+            return cached;
+        }
+        meterRegistry.counter("identity.client.cache", "result", "miss").increment();
+
+        long version = invalidations.get();
+        UserDTO user;
         try {
-            HttpEntity<Void> entity = new HttpEntity<>(createInternalHeaders());
-            return restTemplate.exchange(
-                identityServiceUrl + "/internal/users/" + userId,
-                HttpMethod.GET,
+            user = userLookups.get(userId);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to fetch user from Identity service: " + e.getMessage());
+        }
+        cacheIfCurrent(user, version);
+        return user;
+    }
+
+    /** Resolves many users with at most one call to Identity; unknown ids are missing from the result. */
+    public Map<String, UserDTO> getUsers(Collection<String> userIds) {
+        Map<String, UserDTO> found = new HashMap<>(users.getAllPresent(userIds));
+        List<String> missing = userIds.stream().distinct().filter(id -> !found.containsKey(id)).toList();
+        meterRegistry.counter("identity.client.cache", "result", "hit").increment(found.size());
+        meterRegistry.counter("identity.client.cache", "result", "miss").increment(missing.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        long version = invalidations.get();
+        List<UserDTO> fetched = getUsersByIds(missing);
+        for (UserDTO user : fetched) {
+            found.put(user.getId(), user);
+            cacheIfCurrent(user, version);
+        }
+        return found;
+    }
+
+    public void invalidateUsers(Collection<String> userIds) {
+        long version = invalidations.incrementAndGet();
+        for (String userId : userIds) {
+            // Stamp before removing, so a lookup caching under the same key either sees the stamp or is removed
+            invalidatedAt.put(userId, version);
+            users.invalidate(userId);
+        }
+    }
+
+    // Caches a fetched user unless it was invalidated after the lookup read the given version
+    private void cacheIfCurrent(UserDTO user, long version) {
+        users.asMap().compute(user.getId(), (id, cached) -> {
+            Long invalidated = invalidatedAt.getIfPresent(id);
+            return invalidated != null && invalidated > version ? cached : user;
+        });
+    }
+
+    public List<UserDTO> getUsersByIds(Collection<String> userIds) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            HttpEntity<Collection<String>> entity = new HttpEntity<>(userIds, createInternalHeaders());
+            List<UserDTO> found = restTemplate.exchange(
+                identityServiceUrl + "/internal/users:batchGet",
+                HttpMethod.POST,
                 entity,
-                Map.class
+                new ParameterizedTypeReference<List<UserDTO>>() {}
             ).getBody();
+            outcome = "success";
+            return found;
         } catch (Exception e) {
-            throw new RuntimeException("Failed to fetch user from Identity service: " + e.getMessage());
+            throw new RuntimeException("Failed to fetch users from Identity service: " + e.getMessage());
+        } finally {
+            sample.stop(meterRegistry.timer("identity.client.requests", "operation", "batchGet", "outcome", outcome));
         }
     }
 }
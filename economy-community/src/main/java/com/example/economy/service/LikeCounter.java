@@ -0,0 +1,166 @@
+package com.example.economy.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.common.cache.CachedPages;
+import com.example.economy.entity.Post;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Write-behind like counts. A like only increments a per-post {@link LongAdder}; every
+ * {@code posts.likes.flush-interval} ms the pending counts are written with one batched
+ * {@code likes = likes + ?} update in one transaction, so concurrent likes never read-modify-write the
+ * row and a failed flush can be retried as a whole.
+ */
+@Service
+@RequiredArgsConstructor
+public class LikeCounter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final LogService logService;
+    private final PostTimeline postTimeline;
+    private final TrendingPosts trendingPosts;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+    // Adders taken out of `pending` by the last flush; a like that fetched one just before it was
+    // removed may still land in it, so they are drained once more by the next flush
+    private final Map<String, LongAdder> retired = new ConcurrentHashMap<>();
+    // Deltas of the flush currently being written, still counted by reads until it commits
+    private final Map<String, Long> inFlight = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("economy.likes.pending.posts", pending, Map::size).register(meterRegistry);
+    }
+
+    public void increment(String postId) {
+        LongAdder adder = pending.get(postId);
+        if (adder == null) {
+            adder = pending.computeIfAbsent(postId, id -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    public long pendingLikes(String postId) {
+        long count = 0;
+        LongAdder adder = pending.get(postId);
+        if (adder != null) {
+            count += adder.sum();
+        }
+        LongAdder old = retired.get(postId);
+        if (old != null) {
+            count += old.sum();
+        }
+        return count + inFlight.getOrDefault(postId, 0L);
+    }
+
+    /** The post with likes that are not written yet added; returns a copy so cached posts stay untouched. */
+    public Post withPendingLikes(Post post) {
+        long extra = pendingLikes(post.getId());
+        if (extra == 0) {
+            return post;
+        }
+        Post copy = new Post();
+        copy.setId(post.getId());
+        copy.setAuthorId(post.getAuthorId());
+        copy.setTitle(post.getTitle());
+        copy.setContent(post.getContent());
+        copy.setLikes((int) (post.getLikes() + extra));
+        copy.setCreatedAt(post.getCreatedAt());
+        copy.setUpdatedAt(post.getUpdatedAt());
+        return copy;
+    }
+
+    public void discard(String postId) {
+        pending.remove(postId);
+        retired.remove(postId);
+    }
+
+    @Scheduled(fixedDelayString = "${posts.likes.flush-interval:1000}")
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<String, Long> deltas = new HashMap<>();
+            retired.forEach((postId, adder) -> {
+                retired.remove(postId, adder);
+                deltas.merge(postId, adder.sumThenReset(), Long::sum);
+            });
+            pending.forEach((postId, adder) -> {
+                pending.remove(postId, adder);
+                retired.put(postId, adder);
+                deltas.merge(postId, adder.sumThenReset(), Long::sum);
+            });
+            deltas.values().removeIf(delta -> delta == 0);
+            if (deltas.isEmpty()) {
+                return;
+            }
+
+            inFlight.putAll(deltas);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "failure";
+            try {
+                List<Map.Entry<String, Long>> batch = new ArrayList<>(deltas.entrySet());
+                // All or nothing: re-queuing a partly applied batch would count its applied rows twice
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate("update posts set likes = likes + ? where id = ?", batch, batch.size(),
+                                (ps, entry) -> {
+                                    ps.setLong(1, entry.getValue());
+                                    ps.setString(2, entry.getKey());
+                                }));
+                outcome = "success";
+            } catch (Exception e) {
+                // Put the likes back so the next flush retries them
+                deltas.forEach((postId, delta) ->
+                        pending.computeIfAbsent(postId, id -> new LongAdder()).add(delta));
+                logService.log("ERROR", "Failed to flush " + deltas.size() + " like counts: " + e.getMessage());
+                return;
+            } finally {
+                inFlight.clear();
+                sample.stop(meterRegistry.timer("economy.likes.flush", "outcome", outcome));
+            }
+
+            postTimeline.addLikes(deltas);
+            trendingPosts.addLikes(deltas);
+            evictCaches(deltas.keySet());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Reads add pending likes to cached rows, so once they are written the entries showing those
+    // posts must be reloaded; pages and author lists without them stay cached
+    private void evictCaches(Set<String> postIds) {
+        Cache posts = cacheManager.getCache("posts");
+        if (posts != null) {
+            postIds.forEach(posts::evict);
+        }
+        for (String name : List.of("allPosts", "authorPosts")) {
+            CachedPages.evictRows(cacheManager, name, postIds);
+        }
+    }
+}
@@ -1,18 +1,28 @@
 package com.example.economy.service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import com.example.common.cache.CachedPages;
+import com.example.economy.dto.FeedPageDTO;
 import com.example.economy.dto.PostDTO;
 import com.example.economy.entity.Post;
 import com.example.economy.repository.PostRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 
 @Service
@@ -23,8 +33,20 @@ public class PostService {
     private final IdentityClient identityClient;
     private final LogService logService;
     private final MetricsService metricsService;
-
-    @CacheEvict(value = { "allPosts", "authorPosts" }, allEntries = true)
+    private final LikeCounter likeCounter;
+    private final CacheManager cacheManager;
+    private final PostTimeline postTimeline;
+    private final TrendingPosts trendingPosts;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${posts.feed.max-page-size:100}")
+    private int maxFeedPageSize;
+
+    // A new post is the first row of every page, so all cached pages shift; only its author's list changes
+    @Caching(evict = {
+            @CacheEvict(value = "allPosts", allEntries = true),
+            @CacheEvict(value = "authorPosts", key = "#dto.authorId")
+    })
     public Post createPost(PostDTO dto) {
         identityClient.getUserById(dto.getAuthorId());
 
@@ -33,23 +55,53 @@ public class PostService {
         post.setTitle(dto.getTitle());
         post.setContent(dto.getContent());
         postRepository.save(post);
+        postTimeline.push(post);
+        trendingPosts.recordPost(post);
 
         metricsService.incrementActiveUsers();
+        metricsService.postCreated();
         logService.log("INFO", "Post created: " + dto.getTitle() + " by user " + dto.getAuthorId());
 
         return post;
     }
 
-    @Cacheable(value = "allPosts")
+    @Cacheable(value = "allPosts", key = "#page + ':' + #size")
     public Page<Post> getAllPosts(
         int page,
         int size
     ) {
-        PageRequest pageable = PageRequest.of(page, size);
+        PageRequest pageable = PageRequest.of(page, size, Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
         
         return postRepository.findAll(pageable);
     }
 
+    // Newest first, paged by (createdAt, id): recent pages come from the in-memory timeline and
+    // older ones from a keyset query, so any page costs the same as the first one
+    public FeedPageDTO getFeed(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxFeedPageSize));
+        PostTimeline.Key after = cursor != null && !cursor.isBlank() ? decodeCursor(cursor) : null;
+
+        List<Post> items = postTimeline.page(after, pageSize);
+        if (items == null) {
+            PageRequest limit = PageRequest.of(0, pageSize + 1);
+            items = after == null
+                    ? postRepository.findLatest(limit)
+                    : postRepository.findOlderThan(after.createdAt(), after.id(), limit);
+        }
+
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            Post last = items.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return new FeedPageDTO(items, nextCursor);
+    }
+
+    public List<Post> getTrending(int limit) {
+        return trendingPosts.getTrending(limit);
+    }
+
     @Cacheable(value = "posts", key = "#id")
     public Post getPostById(String id) {
         return postRepository.findById(id)
@@ -61,8 +113,10 @@ public class PostService {
         return postRepository.findByAuthorId(authorId);
     }
 
-    @CachePut(value = "posts", key = "#id")
-    @CacheEvict(value = { "allPosts", "authorPosts" }, allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = "posts", key = "#id"),
+            @CacheEvict(value = "authorPosts", key = "#result.authorId")
+    })
     public Post updatePost(String id, PostDTO dto) {
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
@@ -75,29 +129,84 @@ public class PostService {
         }
         post.setUpdatedAt(LocalDateTime.now());
         postRepository.save(post);
+        postTimeline.replace(post);
+        trendingPosts.update(post);
+        // An edit keeps the post's position, so only the pages showing it are stale
+        CachedPages.evictRows(cacheManager, "allPosts", List.of(id));
 
         logService.log("INFO", "Post updated: " + id);
         return post;
     }
 
-    @CachePut(value = "posts", key = "#id")
+    // The like is only counted in memory here; LikeCounter writes it to the database in batches
     public Post likePost(String id) {
-        Post post = postRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Post not found"));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            Post result = addLike(id);
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(meterRegistry.timer("economy.post.like", "outcome", outcome));
+        }
+    }
 
-        post.setLikes(post.getLikes() + 1);
-        postRepository.save(post);
+    private Post addLike(String id) {
+        Cache posts = cacheManager.getCache("posts");
+        Post post = posts != null ? posts.get(id, Post.class) : null;
+        if (post == null) {
+            post = postRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Post not found"));
+            if (posts != null) {
+                posts.put(id, post);
+            }
+        }
+
+        likeCounter.increment(id);
+        trendingPosts.recordLike(post);
 
         logService.log("INFO", "Post liked: " + id);
-        return post;
+        return likeCounter.withPendingLikes(post);
     }
 
-    @CacheEvict(value = { "posts", "allPosts", "authorPosts" }, key = "#id", allEntries = true)
+    @CacheEvict(value = "posts", key = "#id")
     public void deletePost(String id) {
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
 
         postRepository.delete(post);
+        metricsService.postDeleted();
+        postTimeline.remove(post);
+        trendingPosts.remove(id);
+        likeCounter.discard(id);
+        evictAfterDelete(post);
         logService.log("INFO", "Post deleted: " + id);
     }
+
+    // Rows after a deleted post move up one place, so the page holding it and every later page are stale
+    private void evictAfterDelete(Post post) {
+        Cache authorPosts = cacheManager.getCache("authorPosts");
+        if (authorPosts != null) {
+            authorPosts.evict(post.getAuthorId());
+        }
+        long position = postRepository.countNewerThan(post.getCreatedAt(), post.getId());
+        CachedPages.evictFrom(cacheManager, "allPosts", position);
+    }
+
+    private static String encodeCursor(LocalDateTime createdAt, String id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static PostTimeline.Key decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            if (position.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            return new PostTimeline.Key(LocalDateTime.parse(position[0]), position[1]);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
 }
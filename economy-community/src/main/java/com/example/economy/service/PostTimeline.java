@@ -0,0 +1,200 @@
+package com.example.economy.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.economy.entity.Post;
+import com.example.economy.repository.PostRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The newest {@code posts.feed.timeline-size} posts in feed order (createdAt, id descending). New,
+ * updated and deleted posts are applied to it directly instead of evicting anything; it is also
+ * reloaded every {@code posts.feed.refresh-interval} ms to pick up changes made by other instances.
+ */
+@Service
+@RequiredArgsConstructor
+public class PostTimeline {
+
+    public record Key(LocalDateTime createdAt, String id) {
+        static final Comparator<Key> FEED_ORDER = Comparator.comparing(Key::createdAt)
+                .thenComparing(Key::id)
+                .reversed();
+
+        static Key of(Post post) {
+            return new Key(post.getCreatedAt(), post.getId());
+        }
+    }
+
+    private final PostRepository postRepository;
+    private final LogService logService;
+
+    @Value("${posts.feed.timeline-size:1000}")
+    private int capacity;
+
+    private volatile ConcurrentSkipListMap<Key, Post> posts = new ConcurrentSkipListMap<>(Key.FEED_ORDER);
+    // True when the timeline holds every post, so a short page from it really is the last page
+    private volatile boolean complete;
+    private volatile boolean loaded;
+
+    // Writers take the lock; readers use the skip list without it
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean refreshing;
+    private final List<Post> pushedDuringRefresh = new ArrayList<>();
+    private final List<Key> removedDuringRefresh = new ArrayList<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${posts.feed.refresh-interval:60000}", fixedDelayString = "${posts.feed.refresh-interval:60000}")
+    public void refresh() {
+        lock.lock();
+        try {
+            refreshing = true;
+            pushedDuringRefresh.clear();
+            removedDuringRefresh.clear();
+        } finally {
+            lock.unlock();
+        }
+
+        List<Post> latest;
+        try {
+            latest = postRepository.findLatest(PageRequest.of(0, capacity));
+        } catch (Exception e) {
+            lock.lock();
+            try {
+                refreshing = false;
+            } finally {
+                lock.unlock();
+            }
+            logService.log("ERROR", "Failed to load post timeline: " + e.getMessage());
+            return;
+        }
+
+        ConcurrentSkipListMap<Key, Post> fresh = new ConcurrentSkipListMap<>(Key.FEED_ORDER);
+        latest.forEach(post -> fresh.put(Key.of(post), post));
+        lock.lock();
+        try {
+            // Changes made while the query ran may be missing from its result
+            pushedDuringRefresh.forEach(post -> fresh.put(Key.of(post), post));
+            removedDuringRefresh.forEach(fresh::remove);
+            boolean all = latest.size() < capacity;
+            trim(fresh);
+            posts = fresh;
+            complete = all && fresh.size() < capacity;
+            loaded = true;
+            refreshing = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void push(Post post) {
+        lock.lock();
+        try {
+            posts.put(Key.of(post), post);
+            if (trim(posts)) {
+                complete = false;
+            }
+            if (refreshing) {
+                pushedDuringRefresh.add(post);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void replace(Post post) {
+        lock.lock();
+        try {
+            Key key = Key.of(post);
+            if (posts.containsKey(key)) {
+                posts.put(key, post);
+            }
+            if (refreshing) {
+                pushedDuringRefresh.add(post);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(Post post) {
+        lock.lock();
+        try {
+            Key key = Key.of(post);
+            posts.remove(key);
+            if (refreshing) {
+                pushedDuringRefresh.removeIf(pushed -> pushed.getId().equals(post.getId()));
+                removedDuringRefresh.add(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Applies like counts just written by {@link LikeCounter} to the posts held here. */
+    public void addLikes(Map<String, Long> deltas) {
+        lock.lock();
+        try {
+            for (Map.Entry<Key, Post> entry : posts.entrySet()) {
+                Long delta = deltas.get(entry.getKey().id());
+                if (delta != null) {
+                    Post post = entry.getValue();
+                    Post updated = new Post();
+                    updated.setId(post.getId());
+                    updated.setAuthorId(post.getAuthorId());
+                    updated.setTitle(post.getTitle());
+                    updated.setContent(post.getContent());
+                    updated.setLikes((int) (post.getLikes() + delta));
+                    updated.setCreatedAt(post.getCreatedAt());
+                    updated.setUpdatedAt(post.getUpdatedAt());
+                    posts.put(entry.getKey(), updated);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Up to {@code size + 1} posts after {@code after} (from the top when null), or null when the
+     * timeline cannot answer and the caller has to query the database.
+     */
+    public List<Post> page(Key after, int size) {
+        if (!loaded) {
+            return null;
+        }
+        ConcurrentSkipListMap<Key, Post> current = posts;
+        Map<Key, Post> view = after == null ? current : current.tailMap(after, false);
+
+        List<Post> page = new ArrayList<>(size + 1);
+        for (Post post : view.values()) {
+            page.add(post);
+            if (page.size() > size) {
+                return page;
+            }
+        }
+        return complete ? page : null;
+    }
+
+    private boolean trim(ConcurrentSkipListMap<Key, Post> map) {
+        boolean trimmed = false;
+        while (map.size() > capacity) {
+            map.pollLastEntry();
+            trimmed = true;
+        }
+        return trimmed;
+    }
+}
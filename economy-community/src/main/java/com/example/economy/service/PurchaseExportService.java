@@ -0,0 +1,144 @@
+package com.example.economy.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import com.example.economy.entity.Purchase;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Streams purchases oldest first as NDJSON or CSV. Rows are read through a MySQL streaming result
+ * set and written as they arrive, so an export of any size runs in constant memory and needs no
+ * count query.
+ */
+@Service
+@RequiredArgsConstructor
+public class PurchaseExportService {
+
+    // Both formats export exactly these fields, in this order
+    private static final List<String> FIELDS = List.of("id", "userId", "itemName", "price", "purchasedAt");
+    private static final String CSV_HEADER = String.join(",", FIELDS) + "\n";
+
+    private static final RowMapper<Purchase> ROW_MAPPER = (rs, rowNum) -> {
+        Purchase purchase = new Purchase();
+        purchase.setId(rs.getString("id"));
+        purchase.setUserId(rs.getString("user_id"));
+        purchase.setItemName(rs.getString("item_name"));
+        purchase.setPrice(rs.getObject("price", Integer.class));
+        Timestamp purchasedAt = rs.getTimestamp("purchased_at");
+        purchase.setPurchasedAt(purchasedAt != null ? purchasedAt.toLocalDateTime() : null);
+        return purchase;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private JdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the whole result
+        streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public void export(LocalDateTime from, LocalDateTime to, boolean csv, boolean gzip, OutputStream target) throws IOException {
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(target, 8192) : null;
+        OutputStream out = new BufferedOutputStream(gzipOut != null ? gzipOut : target, 65536);
+        if (csv) {
+            out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<Object> args = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (from != null) {
+            conditions.add("purchased_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            conditions.add("purchased_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        String sql = "select id, user_id, item_name, price, purchased_at from purchases"
+                + (conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions))
+                + " order by purchased_at, id";
+
+        int[] rows = {0};
+        streamingJdbcTemplate.query(sql, rs -> {
+            try {
+                Purchase purchase = ROW_MAPPER.mapRow(rs, rows[0]);
+                if (csv) {
+                    out.write(toCsv(purchase).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    out.write(objectMapper.writeValueAsBytes(toJson(purchase)));
+                    out.write('\n');
+                }
+                if (++rows[0] % 10000 == 0) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, args.toArray());
+
+        out.flush();
+        if (gzipOut != null) {
+            // Writes the gzip trailer without closing the response stream
+            gzipOut.finish();
+        }
+        target.flush();
+    }
+
+    private static Object[] values(Purchase purchase) {
+        return new Object[] {purchase.getId(), purchase.getUserId(), purchase.getItemName(), purchase.getPrice(),
+                purchase.getPurchasedAt()};
+    }
+
+    private static Map<String, Object> toJson(Purchase purchase) {
+        Object[] values = values(purchase);
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            json.put(FIELDS.get(i), values[i]);
+        }
+        return json;
+    }
+
+    private static String toCsv(Purchase purchase) {
+        StringBuilder line = new StringBuilder();
+        for (Object value : values(purchase)) {
+            if (!line.isEmpty()) {
+                line.append(',');
+            }
+            line.append(csvField(value));
+        }
+        return line.append('\n').toString();
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
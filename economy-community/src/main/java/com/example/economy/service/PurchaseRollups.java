@@ -0,0 +1,329 @@
+package com.example.economy.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.economy.dto.ItemSalesDTO;
+import com.example.economy.dto.RevenuePointDTO;
+import com.example.economy.dto.UserSpendDTO;
+import com.example.economy.entity.Purchase;
+import com.example.economy.entity.PurchaseRollup;
+import com.example.economy.entity.PurchaseRollup.Resolution;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * In-memory purchase aggregates: revenue and count per item per hour and per day, lifetime spend
+ * per user and lifetime sales per item, updated on every purchase so reads never scan purchases.
+ * <p>
+ * Every {@code purchases.stats.checkpoint-interval} ms the purchases made since the last watermark
+ * (up to {@code purchases.stats.grace} ago, so in-flight inserts are not skipped) are aggregated
+ * into purchase_rollups and user_spend in one transaction together with the new watermark, which also
+ * deletes the hourly rollups older than {@code purchases.stats.hourly-retention}. On startup, and every
+ * {@code purchases.stats.reload-interval} ms after that (an hour by default, since a rebuild reads the
+ * whole user_spend table), the aggregates are rebuilt from those tables plus the purchases after the
+ * watermark, so purchases made on other replicas show up too. A rebuild is swapped in only once it has
+ * fully loaded; a failed one keeps the current aggregates and is retried on the next run.
+ */
+@Service
+@RequiredArgsConstructor
+public class PurchaseRollups {
+
+    private record Bucket(LocalDateTime start, String itemName) {
+    }
+
+    private static final class Totals {
+        final LongAdder revenue = new LongAdder();
+        final LongAdder count = new LongAdder();
+
+        void add(long amount, long purchases) {
+            revenue.add(amount);
+            count.add(purchases);
+        }
+    }
+
+    private static final class Aggregates {
+        final Map<Bucket, Totals> hourly = new ConcurrentHashMap<>();
+        final Map<Bucket, Totals> daily = new ConcurrentHashMap<>();
+        final Map<String, Totals> items = new ConcurrentHashMap<>();
+        final Map<String, Totals> users = new ConcurrentHashMap<>();
+
+        void apply(Purchase purchase) {
+            apply(purchase.getUserId(), purchase.getItemName(), purchase.getPrice(), purchase.getPurchasedAt());
+        }
+
+        void apply(String userId, String itemName, Integer price, LocalDateTime purchasedAt) {
+            long amount = price != null ? price : 0;
+            String item = itemName != null ? itemName : "";
+            LocalDateTime hour = purchasedAt.truncatedTo(ChronoUnit.HOURS);
+            LocalDateTime day = purchasedAt.truncatedTo(ChronoUnit.DAYS);
+
+            hourly.computeIfAbsent(new Bucket(hour, item), bucket -> new Totals()).add(amount, 1);
+            hourly.computeIfAbsent(new Bucket(hour, PurchaseRollup.ALL_ITEMS), bucket -> new Totals()).add(amount, 1);
+            daily.computeIfAbsent(new Bucket(day, item), bucket -> new Totals()).add(amount, 1);
+            daily.computeIfAbsent(new Bucket(day, PurchaseRollup.ALL_ITEMS), bucket -> new Totals()).add(amount, 1);
+            items.computeIfAbsent(item, key -> new Totals()).add(amount, 1);
+            users.computeIfAbsent(userId != null ? userId : "", key -> new Totals()).add(amount, 1);
+        }
+    }
+
+    private static final String CHECKPOINT = "purchases";
+    private static final LocalDateTime START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final String HOUR_FORMAT = "%Y-%m-%d %H:00:00";
+    private static final String DAY_FORMAT = "%Y-%m-%d 00:00:00";
+
+    private static final String UPSERT_ITEM_ROLLUPS = rollupSql("coalesce(item_name, '')", "group by 1, 2");
+    private static final String UPSERT_TOTAL_ROLLUPS = rollupSql("'" + PurchaseRollup.ALL_ITEMS + "'", "group by 1");
+    private static final String UPSERT_USER_SPEND =
+            "insert into user_spend (user_id, total_spent, purchase_count) "
+                    + "select agg.user_id, agg.total_spent, agg.purchase_count from ("
+                    + "select coalesce(user_id, '') as user_id, coalesce(sum(price), 0) as total_spent, count(*) as purchase_count "
+                    + "from purchases where purchased_at >= ? and purchased_at < ? group by 1) as agg "
+                    + "on duplicate key update total_spent = user_spend.total_spent + agg.total_spent, "
+                    + "purchase_count = user_spend.purchase_count + agg.purchase_count";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LogService logService;
+
+    @Value("${purchases.stats.grace:60s}")
+    private Duration grace;
+
+    @Value("${purchases.stats.hourly-retention:7d}")
+    private Duration hourlyRetention;
+
+    @Value("${purchases.stats.daily-retention:400d}")
+    private Duration dailyRetention;
+
+    @Value("${purchases.stats.max-points:2000}")
+    private int maxPoints;
+
+    @Value("${purchases.stats.top-items:100}")
+    private int topItemsSize;
+
+    private volatile Aggregates aggregates = new Aggregates();
+    private volatile List<ItemSalesDTO> topItems = List.of();
+
+    // Purchases recorded while a reload runs are applied to the current aggregates and also collected
+    // here, then applied to the reloaded ones unless the reload already counted them. The read lock is
+    // held by recorders, the write lock only to start and finish a reload.
+    private final ReentrantReadWriteLock recordLock = new ReentrantReadWriteLock();
+    private List<Purchase> recordedWhileLoading;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    @Scheduled(initialDelayString = "${purchases.stats.reload-interval:3600000}", fixedDelayString = "${purchases.stats.reload-interval:3600000}")
+    public void reload() {
+        if (!reloadLock.tryLock()) {
+            return;
+        }
+        try {
+            // Catch the rollup tables up first so only a short tail of purchases has to be replayed
+            checkpoint();
+
+            recordLock.writeLock().lock();
+            try {
+                recordedWhileLoading = new ArrayList<>();
+            } finally {
+                recordLock.writeLock().unlock();
+            }
+
+            Aggregates loaded = new Aggregates();
+            Set<String> replayed = new HashSet<>();
+            try {
+                read(loaded, replayed);
+            } catch (Exception e) {
+                logService.log("ERROR", "Failed to load purchase rollups, keeping the current ones: " + e.getMessage());
+                recordLock.writeLock().lock();
+                try {
+                    recordedWhileLoading = null;
+                } finally {
+                    recordLock.writeLock().unlock();
+                }
+                return;
+            }
+
+            recordLock.writeLock().lock();
+            try {
+                recordedWhileLoading.stream()
+                        .filter(purchase -> !replayed.contains(purchase.getId()))
+                        .forEach(loaded::apply);
+                recordedWhileLoading = null;
+                aggregates = loaded;
+            } finally {
+                recordLock.writeLock().unlock();
+            }
+            refreshTopItems();
+            logService.log("INFO", "Purchase rollups loaded, replayed " + replayed.size() + " purchases");
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void read(Aggregates into, Set<String> replayed) {
+        LocalDateTime now = LocalDateTime.now();
+        // One transaction, so the watermark, the rollups and the replayed purchases come from the
+        // same snapshot even if another instance checkpoints meanwhile
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Timestamp> watermarks = jdbcTemplate.queryForList(
+                    "select watermark from purchase_rollup_checkpoints where name = ?", Timestamp.class, CHECKPOINT);
+
+            jdbcTemplate.query("select resolution, bucket_start, item_name, revenue, purchase_count from purchase_rollups "
+                            + "where (resolution = 'HOUR' and bucket_start >= ?) or (resolution = 'DAY' and bucket_start >= ?)",
+                    rs -> {
+                        Map<Bucket, Totals> buckets = Resolution.valueOf(rs.getString(1)) == Resolution.HOUR
+                                ? into.hourly : into.daily;
+                        buckets.computeIfAbsent(new Bucket(rs.getTimestamp(2).toLocalDateTime(), rs.getString(3)),
+                                bucket -> new Totals()).add(rs.getLong(4), rs.getLong(5));
+                    },
+                    Timestamp.valueOf(now.minus(hourlyRetention)), Timestamp.valueOf(now.minus(dailyRetention)));
+
+            jdbcTemplate.query("select item_name, sum(revenue), sum(purchase_count) from purchase_rollups "
+                            + "where resolution = 'DAY' and item_name <> ? group by item_name",
+                    rs -> {
+                        into.items.computeIfAbsent(rs.getString(1), item -> new Totals()).add(rs.getLong(2), rs.getLong(3));
+                    },
+                    PurchaseRollup.ALL_ITEMS);
+
+            jdbcTemplate.query("select user_id, total_spent, purchase_count from user_spend", rs -> {
+                into.users.computeIfAbsent(rs.getString(1), user -> new Totals()).add(rs.getLong(2), rs.getLong(3));
+            });
+
+            Timestamp since = watermarks.isEmpty() ? Timestamp.valueOf(START) : watermarks.get(0);
+            jdbcTemplate.query("select id, user_id, item_name, price, purchased_at from purchases where purchased_at >= ?",
+                    rs -> {
+                        replayed.add(rs.getString(1));
+                        into.apply(rs.getString(2), rs.getString(3), rs.getObject(4, Integer.class),
+                                rs.getTimestamp(5).toLocalDateTime());
+                    },
+                    since);
+        });
+    }
+
+    public void record(Purchase purchase) {
+        recordLock.readLock().lock();
+        try {
+            if (recordedWhileLoading != null) {
+                synchronized (recordedWhileLoading) {
+                    recordedWhileLoading.add(purchase);
+                }
+            }
+            aggregates.apply(purchase);
+        } finally {
+            recordLock.readLock().unlock();
+        }
+    }
+
+    public List<RevenuePointDTO> getRevenue(String itemName, Resolution resolution, LocalDateTime from, LocalDateTime to) {
+        ChronoUnit unit = resolution == Resolution.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS;
+        Aggregates current = aggregates;
+        Map<Bucket, Totals> buckets = resolution == Resolution.HOUR ? current.hourly : current.daily;
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = (from != null ? from : end.minus(resolution == Resolution.HOUR ? 24 : 30, unit)).truncatedTo(unit);
+        if (unit.between(start, end) > maxPoints) {
+            throw new RuntimeException("Range too long, at most " + maxPoints + " buckets per request");
+        }
+
+        String item = itemName != null ? itemName : PurchaseRollup.ALL_ITEMS;
+        List<RevenuePointDTO> points = new ArrayList<>();
+        for (LocalDateTime bucket = start; bucket.isBefore(end); bucket = bucket.plus(1, unit)) {
+            Totals totals = buckets.get(new Bucket(bucket, item));
+            points.add(totals != null
+                    ? new RevenuePointDTO(bucket, totals.revenue.sum(), totals.count.sum())
+                    : new RevenuePointDTO(bucket, 0, 0));
+        }
+        return points;
+    }
+
+    public List<ItemSalesDTO> getTopItems(int limit) {
+        List<ItemSalesDTO> current = topItems;
+        return current.size() > limit ? current.subList(0, Math.max(0, limit)) : current;
+    }
+
+    public UserSpendDTO getUserSpend(String userId) {
+        Totals totals = aggregates.users.get(userId);
+        return totals != null
+                ? new UserSpendDTO(userId, totals.revenue.sum(), totals.count.sum())
+                : new UserSpendDTO(userId, 0, 0);
+    }
+
+    @Scheduled(fixedDelayString = "${purchases.stats.top-items-refresh-interval:1000}")
+    public void refreshTopItems() {
+        topItems = aggregates.items.entrySet().stream()
+                .map(entry -> new ItemSalesDTO(entry.getKey(), entry.getValue().revenue.sum(), entry.getValue().count.sum()))
+                .sorted(Comparator.comparingLong(ItemSalesDTO::getRevenue).reversed().thenComparing(ItemSalesDTO::getItemName))
+                .limit(topItemsSize)
+                .toList();
+    }
+
+    @Scheduled(initialDelayString = "${purchases.stats.checkpoint-interval:60000}", fixedDelayString = "${purchases.stats.checkpoint-interval:60000}")
+    public void checkpoint() {
+        Timestamp until = Timestamp.valueOf(LocalDateTime.now().minus(grace));
+        Timestamp hourlyExpiry = Timestamp.valueOf(LocalDateTime.now().minus(hourlyRetention));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("insert ignore into purchase_rollup_checkpoints (name, watermark) values (?, ?)",
+                        CHECKPOINT, Timestamp.valueOf(START));
+                // Locks the watermark so concurrent instances never aggregate the same range twice
+                Timestamp since = jdbcTemplate.queryForObject(
+                        "select watermark from purchase_rollup_checkpoints where name = ? for update", Timestamp.class, CHECKPOINT);
+                // Daily rows are kept: lifetime item sales are summed from them
+                jdbcTemplate.update("delete from purchase_rollups where resolution = ? and bucket_start < ?",
+                        Resolution.HOUR.name(), hourlyExpiry);
+                if (!since.before(until)) {
+                    return;
+                }
+
+                jdbcTemplate.update(UPSERT_ITEM_ROLLUPS, Resolution.HOUR.name(), HOUR_FORMAT, since, until);
+                jdbcTemplate.update(UPSERT_TOTAL_ROLLUPS, Resolution.HOUR.name(), HOUR_FORMAT, since, until);
+                jdbcTemplate.update(UPSERT_ITEM_ROLLUPS, Resolution.DAY.name(), DAY_FORMAT, since, until);
+                jdbcTemplate.update(UPSERT_TOTAL_ROLLUPS, Resolution.DAY.name(), DAY_FORMAT, since, until);
+                jdbcTemplate.update(UPSERT_USER_SPEND, since, until);
+                jdbcTemplate.update("update purchase_rollup_checkpoints set watermark = ? where name = ?", until, CHECKPOINT);
+            });
+        } catch (Exception e) {
+            logService.log("ERROR", "Failed to checkpoint purchase rollups: " + e.getMessage());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime hourlyCutoff = now.minus(hourlyRetention);
+        LocalDateTime dailyCutoff = now.minus(dailyRetention);
+        Aggregates current = aggregates;
+        current.hourly.keySet().removeIf(bucket -> bucket.start().isBefore(hourlyCutoff));
+        current.daily.keySet().removeIf(bucket -> bucket.start().isBefore(dailyCutoff));
+    }
+
+    private static String rollupSql(String itemExpression, String groupBy) {
+        return "insert into purchase_rollups (id, resolution, bucket_start, item_name, revenue, purchase_count) "
+                + "select uuid(), ?, agg.bucket_start, agg.item_name, agg.revenue, agg.purchase_count from ("
+                + "select date_format(purchased_at, ?) as bucket_start, " + itemExpression + " as item_name, "
+                + "coalesce(sum(price), 0) as revenue, count(*) as purchase_count "
+                + "from purchases where purchased_at >= ? and purchased_at < ? " + groupBy + ") as agg "
+                + "on duplicate key update revenue = purchase_rollups.revenue + agg.revenue, "
+                + "purchase_count = purchase_rollups.purchase_count + agg.purchase_count";
+    }
+}
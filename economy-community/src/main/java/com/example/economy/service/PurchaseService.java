@@ -1,46 +1,236 @@
 package com.example.economy.service;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
 
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.example.economy.dto.PurchaseDTO;
+import com.example.economy.dto.UserDTO;
 import com.example.economy.entity.Purchase;
 import com.example.economy.repository.PurchaseRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 @Service
 @RequiredArgsConstructor
 public class PurchaseService {
 
+    private static final String INSERT_PURCHASE =
+            "insert into purchases (id, user_id, item_name, price, purchased_at, idempotency_key) values (?, ?, ?, ?, ?, ?)";
+
     private final PurchaseRepository purchaseRepository;
     private final IdentityClient identityClient;
     private final LogService logService;
     private final MetricsService metricsService;
+    private final PurchaseRollups purchaseRollups;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final CacheManager cacheManager;
+
+    @Value("${purchases.idempotency.cache-size:100000}")
+    private long keyCacheSize;
+
+    @Value("${purchases.idempotency.cache-ttl:24h}")
+    private Duration keyCacheTtl;
+
+    @Value("${purchases.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    // Idempotency key -> id of recent purchases, so retries are answered without touching the unique
+    // index; keys that fell out of it are still rejected by uk_purchases_idempotency_key
+    private ConcurrentMap<String, String> recentKeys;
+
+    @PostConstruct
+    void init() {
+        recentKeys = Caffeine.newBuilder()
+                .maximumSize(keyCacheSize)
+                .expireAfterWrite(keyCacheTtl)
+                .<String, String>build()
+                .asMap();
+    }
 
-    @CacheEvict(value = { "allPurchases", "userPurchases" }, allEntries = true)
     public Purchase createPurchase(PurchaseDTO dto) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            Purchase result = insertPurchase(dto);
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(meterRegistry.timer("economy.purchase.create", "outcome", outcome));
+        }
+    }
+
+    private Purchase insertPurchase(PurchaseDTO dto) {
+        String key = dto.getIdempotencyKey();
+        if (key != null) {
+            String id = recentKeys.get(key);
+            Purchase existing = id != null ? purchaseRepository.findById(id).orElse(null) : null;
+            if (existing != null) {
+                return replay(dto, existing);
+            }
+        }
+
         identityClient.getUserById(dto.getUserId());
 
-        Purchase purchase = new Purchase();
-        purchase.setUserId(dto.getUserId());
-        purchase.setItemName(dto.getItemName());
-        purchase.setPrice(dto.getPrice());
-        purchaseRepository.save(purchase);
+        Purchase purchase = toPurchase(dto);
+        try {
+            insert(List.of(purchase));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent or earlier request with the same key already created it
+            if (key == null) {
+                throw e;
+            }
+            return replay(dto, purchaseRepository.findByIdempotencyKey(key).orElseThrow(() -> e));
+        }
+        created(purchase);
+        evictPages();
+        metricsService.purchasesCreated(1);
 
         logService.log("INFO", "Purchase created: " + dto.getItemName() + " for user " + dto.getUserId());
 
         return purchase;
     }
 
-    @Cacheable(value = "allPurchases")
-     public Page<Purchase> getAllPurchases(int page, int size) {
-        PageRequest pageable = PageRequest.of(page, size);
+    /**
+     * Creates many purchases with one user lookup and one JDBC batch insert. Results are in request
+     * order; entries whose idempotency key was already used return the existing purchase.
+     */
+    public List<Purchase> createPurchases(List<PurchaseDTO> dtos) {
+        meterRegistry.summary("economy.purchase.batch.size").record(dtos.size());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            List<Purchase> result = insertPurchases(dtos);
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(meterRegistry.timer("economy.purchase.batch", "outcome", outcome));
+        }
+    }
+
+    private List<Purchase> insertPurchases(List<PurchaseDTO> dtos) {
+        if (dtos.size() > maxBatchSize) {
+            throw new RuntimeException("Too many purchases in one batch, at most " + maxBatchSize);
+        }
+
+        Map<String, Purchase> known = new HashMap<>();
+        Map<String, String> knownIds = new HashMap<>();
+        for (PurchaseDTO dto : dtos) {
+            String id = dto.getIdempotencyKey() != null ? recentKeys.get(dto.getIdempotencyKey()) : null;
+            if (id != null) {
+                knownIds.put(dto.getIdempotencyKey(), id);
+            }
+        }
+        if (!knownIds.isEmpty()) {
+            Map<String, Purchase> byId = new HashMap<>();
+            purchaseRepository.findAllById(knownIds.values()).forEach(purchase -> byId.put(purchase.getId(), purchase));
+            knownIds.forEach((key, id) -> {
+                if (byId.containsKey(id)) {
+                    known.put(key, byId.get(id));
+                }
+            });
+        }
+
+        List<Purchase> results = new ArrayList<>(dtos.size());
+        List<Purchase> toInsert = new ArrayList<>();
+        List<PurchaseDTO> toInsertDtos = new ArrayList<>();
+        for (PurchaseDTO dto : dtos) {
+            String key = dto.getIdempotencyKey();
+            Purchase existing = key != null ? known.get(key) : null;
+            if (existing != null) {
+                // Either created before or earlier in this batch
+                results.add(replay(dto, existing));
+                continue;
+            }
+            Purchase purchase = toPurchase(dto);
+            toInsert.add(purchase);
+            toInsertDtos.add(dto);
+            results.add(purchase);
+            if (key != null) {
+                known.put(key, purchase);
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return results;
+        }
+
+        Set<String> userIds = new LinkedHashSet<>();
+        for (Purchase purchase : toInsert) {
+            if (purchase.getUserId() == null) {
+                throw new RuntimeException("userId is required");
+            }
+            userIds.add(purchase.getUserId());
+        }
+        Map<String, UserDTO> users = identityClient.getUsers(userIds);
+        for (String userId : userIds) {
+            if (!users.containsKey(userId)) {
+                throw new RuntimeException("User not found: " + userId);
+            }
+        }
+
+        List<Purchase> inserted;
+        try {
+            insert(toInsert);
+            inserted = toInsert;
+        } catch (DataIntegrityViolationException e) {
+            // Some key was used concurrently; the batch was rolled back, so insert row by row and
+            // answer the conflicting ones with the purchase that won
+            inserted = new ArrayList<>();
+            for (int i = 0; i < toInsert.size(); i++) {
+                Purchase purchase = toInsert.get(i);
+                try {
+                    insert(List.of(purchase));
+                    inserted.add(purchase);
+                } catch (DataIntegrityViolationException conflict) {
+                    String key = purchase.getIdempotencyKey();
+                    Purchase existing = key != null ? purchaseRepository.findByIdempotencyKey(key).orElse(null) : null;
+                    if (existing == null) {
+                        throw conflict;
+                    }
+                    Purchase replayed = replay(toInsertDtos.get(i), existing);
+                    results.replaceAll(result -> result == purchase ? replayed : result);
+                }
+            }
+        }
+        inserted.forEach(this::created);
+        if (!inserted.isEmpty()) {
+            evictPages();
+        }
+        metricsService.purchasesCreated(inserted.size());
+
+        logService.log("INFO", "Purchase batch created: " + inserted.size() + " of " + dtos.size() + " purchases inserted");
+        return results;
+    }
+
+    @Cacheable(value = "allPurchases", key = "#page + ':' + #size")
+    public Page<Purchase> getAllPurchases(int page, int size) {
+        PageRequest pageable = PageRequest.of(page, size, Sort.by(Sort.Order.desc("purchasedAt"), Sort.Order.desc("id")));
 
         return purchaseRepository.findAll(pageable);
     }
@@ -55,4 +245,60 @@ public class PurchaseService {
     public List<Purchase> getUserPurchases(String userId) {
         return purchaseRepository.findByUserId(userId);
     }
+
+    // The one insert path for single purchases, batches and the row-by-row fallback: a JDBC batch in its own
+    // transaction, so either every row is stored or none is
+    private void insert(List<Purchase> purchases) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_PURCHASE, purchases, purchases.size(), (ps, purchase) -> {
+                    ps.setString(1, purchase.getId());
+                    ps.setString(2, purchase.getUserId());
+                    ps.setString(3, purchase.getItemName());
+                    ps.setObject(4, purchase.getPrice());
+                    ps.setTimestamp(5, Timestamp.valueOf(purchase.getPurchasedAt()));
+                    ps.setString(6, purchase.getIdempotencyKey());
+                }));
+    }
+
+    private Purchase toPurchase(PurchaseDTO dto) {
+        if (dto.getIdempotencyKey() != null && dto.getIdempotencyKey().length() > 100) {
+            throw new RuntimeException("idempotencyKey must be at most 100 characters");
+        }
+        Purchase purchase = new Purchase();
+        purchase.setId(UUID.randomUUID().toString());
+        purchase.setUserId(dto.getUserId());
+        purchase.setItemName(dto.getItemName());
+        purchase.setPrice(dto.getPrice());
+        purchase.setIdempotencyKey(dto.getIdempotencyKey());
+        return purchase;
+    }
+
+    private void created(Purchase purchase) {
+        if (purchase.getIdempotencyKey() != null) {
+            recentKeys.put(purchase.getIdempotencyKey(), purchase.getId());
+        }
+        purchaseRollups.record(purchase);
+        Cache userPurchases = cacheManager.getCache("userPurchases");
+        if (userPurchases != null) {
+            userPurchases.evict(purchase.getUserId());
+        }
+    }
+
+    // A new purchase is the first row of every page, so all cached pages shift
+    private void evictPages() {
+        Cache allPurchases = cacheManager.getCache("allPurchases");
+        if (allPurchases != null) {
+            allPurchases.clear();
+        }
+    }
+
+    private Purchase replay(PurchaseDTO dto, Purchase existing) {
+        if (!Objects.equals(existing.getUserId(), dto.getUserId())
+                || !Objects.equals(existing.getItemName(), dto.getItemName())
+                || !Objects.equals(existing.getPrice(), dto.getPrice())) {
+            throw new RuntimeException("Idempotency key already used for a different purchase");
+        }
+        meterRegistry.counter("economy.purchase.replayed").increment();
+        return existing;
+    }
 }
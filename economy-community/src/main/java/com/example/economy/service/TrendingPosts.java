@@ -0,0 +1,240 @@
+package com.example.economy.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.economy.entity.Post;
+import com.example.economy.repository.PostRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Ranks posts by a score that halves every {@code posts.trending.half-life}. Every event adds its
+ * weight scaled by 2^((t - epoch) / halfLife) instead of decaying all stored scores, so scores only
+ * grow and a post can only enter the top {@code posts.trending.size} when one of its own events
+ * arrives. The epoch is moved forward from time to time to keep the scale factor finite.
+ */
+@Service
+@RequiredArgsConstructor
+public class TrendingPosts {
+
+    private record Ranked(Post post, double score) {
+        static final Comparator<Ranked> ORDER = Comparator.comparingDouble(Ranked::score).reversed()
+                .thenComparing(ranked -> ranked.post().getId());
+    }
+
+    // Move the epoch once the scale factor passes 2^256, far below where doubles overflow
+    private static final double MAX_EXPONENT = 256;
+
+    private final PostRepository postRepository;
+    private final LogService logService;
+
+    @Value("${posts.trending.size:50}")
+    private int size;
+
+    @Value("${posts.trending.half-life:6h}")
+    private Duration halfLife;
+
+    @Value("${posts.trending.post-weight:1.0}")
+    private double postWeight;
+
+    @Value("${posts.trending.like-weight:1.0}")
+    private double likeWeight;
+
+    // Posts whose decayed score falls below this (in likes) are forgotten unless they are in the top
+    @Value("${posts.trending.min-score:0.01}")
+    private double minScore;
+
+    @Value("${posts.trending.rebuild-window:7d}")
+    private Duration rebuildWindow;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Ranked> scores = new HashMap<>();
+    private final TreeSet<Ranked> top = new TreeSet<>(Ranked.ORDER);
+    private long epochMillis = System.currentTimeMillis();
+
+    // Rebuilt by the first read after the top changes, so steady-state reads take no lock
+    private volatile List<Post> snapshot = List.of();
+    private volatile boolean dirty;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Post> posts;
+        try {
+            posts = postRepository.findByCreatedAtAfter(LocalDateTime.now().minus(rebuildWindow));
+        } catch (Exception e) {
+            logService.log("ERROR", "Failed to rebuild trending posts: " + e.getMessage());
+            return;
+        }
+
+        lock.lock();
+        try {
+            // Like times are not stored, so the likes a post already has are counted at its creation
+            // time. Posts that saw live events meanwhile keep whichever score is higher.
+            for (Post post : posts) {
+                long createdAt = post.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                double weight = postWeight + likeWeight * (post.getLikes() != null ? post.getLikes() : 0);
+                double score = weight * scale(createdAt);
+                Ranked current = scores.get(post.getId());
+                if (current == null || current.score() < score) {
+                    put(new Ranked(current != null ? current.post() : post, score));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        logService.log("INFO", "Trending posts rebuilt from " + posts.size() + " posts");
+    }
+
+    public void recordPost(Post post) {
+        add(post, postWeight);
+    }
+
+    public void recordLike(Post post) {
+        add(post, likeWeight);
+    }
+
+    public void update(Post post) {
+        lock.lock();
+        try {
+            Ranked current = scores.get(post.getId());
+            if (current != null) {
+                put(new Ranked(post, current.score()));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(String postId) {
+        lock.lock();
+        try {
+            Ranked removed = scores.remove(postId);
+            if (removed != null && top.remove(removed)) {
+                dirty = true;
+                // The best remaining post outside the top takes the free slot
+                scores.values().stream()
+                        .filter(ranked -> !top.contains(ranked))
+                        .min(Ranked.ORDER)
+                        .ifPresent(top::add);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Applies like counts just written by {@link LikeCounter} to the posts held here. */
+    public void addLikes(Map<String, Long> deltas) {
+        lock.lock();
+        try {
+            deltas.forEach((postId, delta) -> {
+                Ranked current = scores.get(postId);
+                if (current != null) {
+                    Post post = current.post();
+                    Post updated = new Post();
+                    updated.setId(post.getId());
+                    updated.setAuthorId(post.getAuthorId());
+                    updated.setTitle(post.getTitle());
+                    updated.setContent(post.getContent());
+                    updated.setLikes((int) (post.getLikes() + delta));
+                    updated.setCreatedAt(post.getCreatedAt());
+                    updated.setUpdatedAt(post.getUpdatedAt());
+                    put(new Ranked(updated, current.score()));
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<Post> getTrending(int limit) {
+        List<Post> current = snapshot;
+        if (dirty) {
+            lock.lock();
+            try {
+                if (dirty) {
+                    dirty = false;
+                    current = top.stream().map(Ranked::post).toList();
+                    snapshot = current;
+                } else {
+                    current = snapshot;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current.size() > limit ? current.subList(0, Math.max(0, limit)) : current;
+    }
+
+    @Scheduled(fixedDelayString = "${posts.trending.prune-interval:60000}")
+    public void prune() {
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            double exponent = (double) (now - epochMillis) / halfLife.toMillis();
+            if (exponent > MAX_EXPONENT) {
+                // Rescale every score to a new epoch; the order does not change
+                double factor = Math.pow(2, -exponent);
+                List<Ranked> ranked = new ArrayList<>(scores.values());
+                List<String> topIds = top.stream().map(entry -> entry.post().getId()).toList();
+                scores.clear();
+                top.clear();
+                ranked.forEach(entry -> scores.put(entry.post().getId(), new Ranked(entry.post(), entry.score() * factor)));
+                topIds.forEach(id -> top.add(scores.get(id)));
+                epochMillis = now;
+            }
+
+            double threshold = minScore * scale(now);
+            scores.values().removeIf(ranked -> ranked.score() < threshold && !top.contains(ranked));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void add(Post post, double weight) {
+        lock.lock();
+        try {
+            Ranked current = scores.get(post.getId());
+            double score = (current != null ? current.score() : 0) + weight * scale(System.currentTimeMillis());
+            put(new Ranked(post, score));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds the lock
+    private void put(Ranked ranked) {
+        Ranked previous = scores.put(ranked.post().getId(), ranked);
+        if (previous != null && top.remove(previous)) {
+            top.add(ranked);
+            dirty = true;
+            return;
+        }
+        if (top.size() < size) {
+            top.add(ranked);
+            dirty = true;
+        } else if (Ranked.ORDER.compare(ranked, top.last()) < 0) {
+            top.pollLast();
+            top.add(ranked);
+            dirty = true;
+        }
+    }
+
+    private double scale(long timeMillis) {
+        return Math.pow(2, (double) (timeMillis - epochMillis) / halfLife.toMillis());
+    }
+}
@@ -1,27 +1,38 @@
 package com.example.identity.config;
 
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.example.common.cache.CacheFactory;
+import com.example.identity.dto.UserDTO;
+import com.example.identity.repository.UserRepository;
 
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The service's caches, built by the common {@link CacheFactory} from {@code cache.<name>.*} and
+ * {@code cache.l2.*}.
+ */
 @Configuration
-@EnableCaching
+@RequiredArgsConstructor
 public class CacheConfig {
-    @Bean
-    public Caffeine<Object, Object> caffeineConfig() {
-        return Caffeine.newBuilder().expireAfterWrite(300, TimeUnit.MINUTES);
-    }
+
+    // Fixed so every cache exists at startup, where Spring Boot binds its hit, miss, put and eviction
+    // statistics to Micrometer as cache.gets / cache.puts / cache.evictions
+    public static final List<String> CACHE_NAMES = List.of("users", "allUsers");
+
+    private final UserRepository userRepository;
 
     @Bean
-    public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
-        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
-        caffeineCacheManager.setCaffeine(caffeine);
-        return caffeineCacheManager;
+    public CacheManager cacheManager(CacheFactory cacheFactory) {
+        return cacheFactory.build(CACHE_NAMES,
+                Map.of(
+                        "users", id -> userRepository.findById((String) id).map(UserDTO::from).orElse(null)),
+                // allUsers is a single list, evicted whole on writes
+                Map.of());
     }
 }
@@ -1,5 +1,6 @@
 package com.example.identity.config;
 
+import com.example.common.security.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
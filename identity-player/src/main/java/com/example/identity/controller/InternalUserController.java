@@ -1,27 +1,39 @@
 package com.example.identity.controller;
 
+import com.example.identity.dto.MmrDeltaDTO;
 import com.example.identity.dto.UserDTO;
 import com.example.identity.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.util.List;
 import java.util.Map;
 
 @RestController
-@RequestMapping("/internal/users")
+@RequestMapping("/internal")
 @RequiredArgsConstructor
 public class InternalUserController {
 
     private final UserService userService;
 
-    @GetMapping("/{id}")
+    @GetMapping("/users/{id}")
     public ResponseEntity<UserDTO> getUserById(@PathVariable String id) {
         return ResponseEntity.ok(userService.getUserById(id));
     }
 
-    @PutMapping("/{id}/mmr")
+    @PostMapping("/users:batchGet")
+    public ResponseEntity<List<UserDTO>> getUsersByIds(@RequestBody List<String> ids) {
+        return ResponseEntity.ok(userService.getUsersByIds(ids));
+    }
+
+    @PutMapping("/users/{id}/mmr")
     public ResponseEntity<UserDTO> updateMmr(@PathVariable String id, @RequestBody Map<String, Integer> body) {
         Integer mmr = body.get("mmr");
         return ResponseEntity.ok(userService.updateMmr(id, mmr));
     }
+
+    @PostMapping("/users/mmr/batch")
+    public ResponseEntity<List<UserDTO>> applyMmrDeltas(@RequestBody List<MmrDeltaDTO> deltas) {
+        return ResponseEntity.ok(userService.applyMmrDeltas(deltas));
+    }
 }
@@ -0,0 +1,10 @@
+package com.example.identity.dto;
+
+import lombok.Data;
+
+@Data
+public class MmrDeltaDTO {
+    private String matchId;
+    private String userId;
+    private Integer delta;
+}
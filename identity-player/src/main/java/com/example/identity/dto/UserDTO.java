@@ -1,11 +1,24 @@
 package com.example.identity.dto;
 
+import java.io.Serializable;
+
+import com.example.identity.entity.User;
+
 import lombok.Data;
 
 @Data
-public class UserDTO {
+public class UserDTO implements Serializable {
     private String id;
     private String username;
     private String displayName;
     private Integer mmr;
+
+    public static UserDTO from(User user) {
+        UserDTO dto = new UserDTO();
+        dto.setId(user.getId());
+        dto.setUsername(user.getUsername());
+        dto.setDisplayName(user.getDisplayName());
+        dto.setMmr(user.getMmr());
+        return dto;
+    }
 }
@@ -0,0 +1,33 @@
+package com.example.identity.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * One row per (match, user) MMR delta that has been applied, so retried settlement batches are skipped.
+ */
+@Entity
+@Data
+@IdClass(AppliedMmrDelta.Key.class)
+@Table(name = "applied_mmr_deltas")
+public class AppliedMmrDelta {
+    @Id
+    private String matchId;
+
+    @Id
+    private String userId;
+
+    private LocalDateTime appliedAt = LocalDateTime.now();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String matchId;
+        private String userId;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.identity.repository;
+
+import com.example.identity.entity.AppliedMmrDelta;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+
+@Repository
+public interface AppliedMmrDeltaRepository extends JpaRepository<AppliedMmrDelta, AppliedMmrDelta.Key> {
+
+    // Returns 0 when the (match, user) delta was already applied, or is being applied by a concurrent
+    // transaction that then commits
+    @Modifying
+    @Query(value = "insert ignore into applied_mmr_deltas (match_id, user_id, applied_at) "
+            + "values (:matchId, :userId, :appliedAt)", nativeQuery = true)
+    int insertIfAbsent(@Param("matchId") String matchId, @Param("userId") String userId,
+            @Param("appliedAt") LocalDateTime appliedAt);
+}
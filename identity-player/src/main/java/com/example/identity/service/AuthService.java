@@ -4,7 +4,10 @@ import com.example.identity.dto.LoginDTO;
 import com.example.identity.dto.RegisterDTO;
 import com.example.identity.entity.User;
 import com.example.identity.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -12,11 +15,41 @@ import org.springframework.stereotype.Service;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final JwtService jwtService;
+    private final JwtIssuer jwtIssuer;
     private final LogService logService;
     private final MetricsService metricsService;
+    private final MeterRegistry meterRegistry;
 
+    @CacheEvict(value = "allUsers", allEntries = true)
     public String register(RegisterDTO dto) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            String result = createUser(dto);
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(meterRegistry.timer("identity.auth", "type", "register", "outcome", outcome));
+        }
+    }
+
+    public String login(LoginDTO dto) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            String result = checkCredentials(dto);
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(meterRegistry.timer("identity.auth", "type", "login", "outcome", outcome));
+        }
+    }
+
+    public void logout() {
+        metricsService.decrementActiveUsers();
+    }
+
+    private String createUser(RegisterDTO dto) {
         if (userRepository.existsByUsername(dto.getUsername())) {
             logService.log("ERROR", "Registration failed: username already exists - " + dto.getUsername());
             throw new RuntimeException("Username already exists");
@@ -29,10 +62,10 @@ public class AuthService {
         userRepository.save(user);
 
         logService.log("INFO", "User registered: " + user.getUsername());
-        return jwtService.generate(user.getId());
+        return jwtIssuer.generate(user.getId());
     }
 
-    public String login(LoginDTO dto) {
+    private String checkCredentials(LoginDTO dto) {
         User user = userRepository.findByUsername(dto.getUsername())
                 .orElseThrow(() -> {
                     logService.log("ERROR", "Login failed: user not found - " + dto.getUsername());
@@ -46,10 +79,6 @@ public class AuthService {
 
         metricsService.incrementActiveUsers();
         logService.log("INFO", "User logged in: " + user.getUsername());
-        return jwtService.generate(user.getId());
-    }
-
-    public void logout() {
-        metricsService.decrementActiveUsers();
+        return jwtIssuer.generate(user.getId());
     }
 }
@@ -2,28 +2,32 @@ package com.example.identity.service;
 
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.security.Key;
 
+/**
+ * Signs the bearer tokens handed out on login and registration. Every service verifies them with
+ * the shared {@code com.example.common.security.JwtService}.
+ */
 @Service
-public class JwtService {
+public class JwtIssuer {
 
     @Value("${jwt.secret}")
     private String secret;
 
+    private Key signingKey;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+    }
+
     public String generate(String userId) {
         return Jwts.builder()
                 .setSubject(userId)
-                .signWith(Keys.hmacShaKeyFor(secret.getBytes()))
+                .signWith(signingKey)
                 .compact();
     }
-
-    public String validate(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secret.getBytes())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
 }
@@ -1,30 +1,36 @@
 package com.example.identity.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.example.common.log.LogRingBuffer;
+
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class LogService {
-    private final Queue<Map<String, String>> logs = new ConcurrentLinkedQueue<>();
-    private static final int MAX_LOGS = 100;
+    private final LogRingBuffer buffer;
 
-    public void log(String level, String message) {
-        Map<String, String> logEntry = new HashMap<>();
-        logEntry.put("ts", LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
-        logEntry.put("level", level);
-        logEntry.put("msg", message);
-
-        logs.offer(logEntry);
+    // Sequence numbers start from the boot time so they keep increasing across restarts
+    public LogService(@Value("${logs.buffer.capacity:1024}") int capacity) {
+        this.buffer = new LogRingBuffer(capacity, System.currentTimeMillis() * 1000);
+    }
 
-        if (logs.size() > MAX_LOGS) {
-            logs.poll();
-        }
+    public void log(String level, String message) {
+        buffer.add(level, message);
     }
 
     public List<Map<String, String>> getLogs() {
-        return new ArrayList<>(logs);
+        return buffer.read(0);
+    }
+
+    // Entries newer than the given sequence number. A cursor ahead of the latest entry means the
+    // caller's cursor is from elsewhere (e.g. a clock that went backwards), so everything is returned.
+    public List<Map<String, String>> getLogs(long since) {
+        if (since > buffer.lastSequence()) {
+            return getLogs();
+        }
+        return buffer.read(since);
     }
 }
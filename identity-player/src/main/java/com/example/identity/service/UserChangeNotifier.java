@@ -0,0 +1,86 @@
+package com.example.identity.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.RestTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Pushes the IDs of changed users to the services that keep a near cache of user profiles,
+ * so they can drop their copies. Changes are collected and sent in one request per subscriber
+ * every {@code identity.events.flush-interval} milliseconds.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangeNotifier {
+
+    private final LogService logService;
+    private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${identity.events.subscribers:}")
+    private List<String> subscribers;
+
+    @Value("${internal.api.key}")
+    private String internalApiKey;
+
+    // One set per subscriber, so IDs a failed push could not deliver stay queued for that subscriber only
+    private final Map<String, Set<String>> changedUserIds = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        subscribers.stream()
+                .filter(subscriber -> !subscriber.isBlank())
+                .forEach(subscriber -> changedUserIds.put(subscriber, ConcurrentHashMap.newKeySet()));
+        Gauge.builder("identity.events.pending", changedUserIds,
+                pending -> pending.values().stream().mapToInt(Set::size).sum()).register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        changedUserIds.values().forEach(pending -> pending.addAll(event.userIds()));
+    }
+
+    @Scheduled(fixedDelayString = "${identity.events.flush-interval:200}")
+    public void publish() {
+        changedUserIds.forEach(this::publish);
+    }
+
+    private void publish(String subscriber, Set<String> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<String> userIds = new ArrayList<>(pending);
+        pending.removeAll(userIds);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Internal-API-Key", internalApiKey);
+        HttpEntity<List<String>> entity = new HttpEntity<>(userIds, headers);
+
+        try {
+            restTemplate.exchange(subscriber + "/internal/events/users-changed", HttpMethod.POST, entity, Void.class);
+            meterRegistry.counter("identity.events.notifications", "subscriber", subscriber, "outcome", "success").increment();
+        } catch (Exception e) {
+            // Re-queued for the next flush; a missed push would leave the subscriber's near cache stale
+            pending.addAll(userIds);
+            meterRegistry.counter("identity.events.notifications", "subscriber", subscriber, "outcome", "failure").increment();
+            logService.log("WARN", "Failed to notify " + subscriber + " of " + userIds.size() + " changed users: " + e.getMessage());
+        }
+    }
+}
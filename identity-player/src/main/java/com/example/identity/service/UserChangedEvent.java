@@ -0,0 +1,6 @@
+package com.example.identity.service;
+
+import java.util.Collection;
+
+public record UserChangedEvent(Collection<String> userIds) {
+}
@@ -1,30 +1,48 @@
 package com.example.identity.service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.example.identity.dto.MmrDeltaDTO;
 import com.example.identity.dto.UserDTO;
 import com.example.identity.entity.User;
+import com.example.identity.repository.AppliedMmrDeltaRepository;
 import com.example.identity.repository.UserRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
+    private static final String ALL_USERS_KEY = "all";
+
     private final UserRepository userRepository;
     private final LogService logService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final CacheManager cacheManager;
+    private final AppliedMmrDeltaRepository appliedMmrDeltaRepository;
 
-    @Cacheable(value = "allUsers")
+    @Cacheable(value = "allUsers", key = "'" + ALL_USERS_KEY + "'")
     public List<UserDTO> getAllUsers() {
         return userRepository.findAll().stream()
-                .map(this::toDTO)
+                .map(UserDTO::from)
                 .collect(Collectors.toList());
     }
 
@@ -42,34 +60,83 @@ public class UserService {
                 });
 
         System.out.println("User found: " + user.getUsername());
-        return toDTO(user);
+        return UserDTO.from(user);
+    }
+
+    public List<UserDTO> getUsersByIds(List<String> ids) {
+        return userRepository.findAllById(ids).stream()
+                .map(UserDTO::from)
+                .collect(Collectors.toList());
     }
 
-    @CachePut(value = "users", key = "#id")
-    @CacheEvict(value = "allUsers", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = "users", key = "#id"),
+            @CacheEvict(value = "allUsers", key = "'" + ALL_USERS_KEY + "'")
+    })
     public UserDTO updateMmr(String id, Integer mmr) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setMmr(mmr);
         userRepository.save(user);
+        UserDTO updated = UserDTO.from(user);
+        eventPublisher.publishEvent(new UserChangedEvent(List.of(id)));
         logService.log("INFO", "MMR updated for user: " + user.getUsername() + " -> " + mmr);
-        return toDTO(user);
+        return updated;
+    }
+
+    @Transactional
+    public List<UserDTO> applyMmrDeltas(List<MmrDeltaDTO> deltas) {
+        Map<String, Integer> totals = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        int applied = 0;
+        for (MmrDeltaDTO delta : deltas) {
+            // Settlement batches are retried by their senders; the applied row commits with the MMR
+            // update, so a delta already applied by any replica inserts nothing and is skipped
+            if (delta.getMatchId() != null
+                    && appliedMmrDeltaRepository.insertIfAbsent(delta.getMatchId(), delta.getUserId(), now) == 0) {
+                continue;
+            }
+            applied++;
+            totals.merge(delta.getUserId(), delta.getDelta(), Integer::sum);
+        }
+
+        meterRegistry.counter("identity.mmr.deltas", "outcome", "applied").increment(applied);
+        meterRegistry.counter("identity.mmr.deltas", "outcome", "duplicate").increment(deltas.size() - applied);
+
+        List<User> users = userRepository.findAllById(totals.keySet());
+        users.forEach(user -> user.setMmr(Math.max(0, user.getMmr() + totals.get(user.getId()))));
+        userRepository.saveAll(users);
+        Map<String, UserDTO> updated = users.stream()
+                .collect(Collectors.toMap(User::getId, UserDTO::from));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                org.springframework.cache.Cache usersCache = cacheManager.getCache("users");
+                if (usersCache != null) {
+                    updated.keySet().forEach(usersCache::evict);
+                }
+                org.springframework.cache.Cache allUsersCache = cacheManager.getCache("allUsers");
+                if (allUsersCache != null) {
+                    allUsersCache.evict(ALL_USERS_KEY);
+                }
+            }
+        });
+
+        eventPublisher.publishEvent(new UserChangedEvent(List.copyOf(totals.keySet())));
+        logService.log("INFO", "MMR batch applied: " + deltas.size() + " deltas for " + users.size() + " users");
+        return new ArrayList<>(updated.values());
     }
 
-    @CacheEvict(value = { "users", "allUsers" }, key = "#id", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = "users", key = "#id"),
+            @CacheEvict(value = "allUsers", key = "'" + ALL_USERS_KEY + "'")
+    })
     public void deleteUser(String id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         userRepository.delete(user);
+        eventPublisher.publishEvent(new UserChangedEvent(List.of(id)));
         logService.log("INFO", "User deleted: " + user.getUsername());
     }
-
-    private UserDTO toDTO(User user) {
-        UserDTO dto = new UserDTO();
-        dto.setId(user.getId());
-        dto.setUsername(user.getUsername());
-        dto.setDisplayName(user.getDisplayName());
-        dto.setMmr(user.getMmr());
-        return dto;
-    }
 }
@@ -2,8 +2,17 @@ package com.example.matchmaking;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.example.common.cache.CacheFactory;
+import com.example.common.client.HttpClientConfig;
+import com.example.common.security.JwtAuthenticationFilter;
+import com.example.common.security.JwtService;
 
 @SpringBootApplication
+@EnableScheduling
+@Import({HttpClientConfig.class, CacheFactory.class, JwtService.class, JwtAuthenticationFilter.class})
 public class MatchmakingApplication {
     public static void main(String[] args) {
         SpringApplication.run(MatchmakingApplication.class, args);
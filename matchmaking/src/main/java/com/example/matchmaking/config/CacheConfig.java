@@ -1,27 +1,39 @@
 package com.example.matchmaking.config;
 
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.example.common.cache.CacheFactory;
+import com.example.matchmaking.entity.Match;
+import com.example.matchmaking.repository.MatchRepository;
 
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The service's caches, built by the common {@link CacheFactory} from {@code cache.<name>.*} and
+ * {@code cache.l2.*}.
+ */
 @Configuration
-@EnableCaching
+@RequiredArgsConstructor
 public class CacheConfig {
-    @Bean
-    public Caffeine<Object, Object> caffeineConfig() {
-        return Caffeine.newBuilder().expireAfterWrite(300, TimeUnit.MINUTES);
-    }
+
+    // Fixed so every cache exists at startup, where Spring Boot binds its hit, miss, put and eviction
+    // statistics to Micrometer as cache.gets / cache.puts / cache.evictions
+    public static final List<String> CACHE_NAMES = List.of("matches", "allMatches", "playerMatches");
+
+    private final MatchRepository matchRepository;
 
     @Bean
-    public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
-        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
-        caffeineCacheManager.setCaffeine(caffeine);
-        return caffeineCacheManager;
+    public CacheManager cacheManager(CacheFactory cacheFactory) {
+        return cacheFactory.build(CACHE_NAMES,
+                Map.of(
+                        "matches", id -> matchRepository.findById((String) id).orElse(null)),
+                // Page and list caches whose entries a write evicts by the rows they hold
+                Map.of(
+                        "allMatches", row -> ((Match) row).getId()));
     }
 }
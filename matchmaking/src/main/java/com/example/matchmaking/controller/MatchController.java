@@ -2,12 +2,18 @@ package com.example.matchmaking.controller;
 
 import com.example.matchmaking.dto.CompleteMatchDTO;
 import com.example.matchmaking.entity.Match;
+import com.example.matchmaking.service.MatchExportService;
 import com.example.matchmaking.service.MatchService;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -17,6 +23,7 @@ import java.util.Map;
 public class MatchController {
 
     private final MatchService matchService;
+    private final MatchExportService matchExportService;
 
     @PostMapping
     public ResponseEntity<Match> createMatch(@RequestBody Map<String, String> body) {
@@ -37,6 +44,29 @@ public class MatchController {
         return ResponseEntity.ok(matchService.getAllMatches(page, size));
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMatches(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                 @RequestParam(defaultValue = "ndjson") String format,
+                                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean csv = switch (format) {
+            case "csv" -> true;
+            case "ndjson" -> false;
+            default -> throw new RuntimeException("Unsupported export format: " + format);
+        };
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        StreamingResponseBody body = out -> matchExportService.export(from, to, csv, gzip, out);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(csv ? "text/csv" : "application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=matches." + format)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Match> getMatchById(@PathVariable String id) {
         return ResponseEntity.ok(matchService.getMatchById(id));
@@ -0,0 +1,14 @@
+package com.example.matchmaking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MmrDeltaDTO {
+    private String matchId;
+    private String userId;
+    private Integer delta;
+}
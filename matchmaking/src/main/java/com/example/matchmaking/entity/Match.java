@@ -1,5 +1,6 @@
 package com.example.matchmaking.entity;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 
 import jakarta.persistence.Entity;
@@ -19,9 +20,10 @@ import lombok.Data;
         @Index(name = "idx_matches_player2_created_at", columnList = "player2id, created_at"),
         @Index(name = "idx_matches_status_created_at", columnList = "status, created_at"),
         @Index(name = "idx_matches_status_completed_at", columnList = "status, completed_at"),
-        @Index(name = "idx_matches_winner_id", columnList = "winner_id")
+        @Index(name = "idx_matches_winner_id", columnList = "winner_id"),
+        @Index(name = "idx_matches_created_at", columnList = "created_at")
 })
-public class Match {
+public class Match implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
@@ -0,0 +1,42 @@
+package com.example.matchmaking.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outbox row for an MMR delta that has not been acknowledged by Identity yet. Written in the same
+ * transaction as the completed match and deleted once Identity has applied it.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "pending_mmr_deltas", indexes = {
+        @Index(name = "idx_pending_mmr_deltas_created_at", columnList = "created_at")
+})
+public class PendingMmrDelta {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    private String matchId;
+
+    private String userId;
+
+    private Integer delta;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public PendingMmrDelta(String matchId, String userId, Integer delta) {
+        this.matchId = matchId;
+        this.userId = userId;
+        this.delta = delta;
+    }
+}
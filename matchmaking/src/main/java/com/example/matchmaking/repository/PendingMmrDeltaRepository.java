@@ -0,0 +1,12 @@
+package com.example.matchmaking.repository;
+
+import com.example.matchmaking.entity.PendingMmrDelta;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface PendingMmrDeltaRepository extends JpaRepository<PendingMmrDelta, String> {
+    List<PendingMmrDelta> findAllByOrderByCreatedAtAsc(Pageable pageable);
+}
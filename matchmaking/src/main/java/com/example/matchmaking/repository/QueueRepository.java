@@ -2,7 +2,12 @@ package com.example.matchmaking.repository;
 
 import com.example.matchmaking.entity.QueueEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
@@ -10,4 +15,9 @@ public interface QueueRepository extends JpaRepository<QueueEntry, String> {
     Optional<QueueEntry> findByPlayerId(String playerId);
     boolean existsByPlayerId(String playerId);
     void deleteByPlayerId(String playerId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from QueueEntry q where q.playerId in :playerIds")
+    int deleteByPlayerIdIn(@Param("playerIds") Collection<String> playerIds);
 }
@@ -0,0 +1,129 @@
+package com.example.matchmaking.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import com.example.matchmaking.entity.Match;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Streams matches oldest first (by creation time) as NDJSON or CSV. Rows are read through a MySQL streaming result
+ * set and written as they arrive, so an export of any size runs in constant memory and needs no
+ * count query.
+ */
+@Service
+@RequiredArgsConstructor
+public class MatchExportService {
+
+    private static final String CSV_HEADER = "id,player1Id,player2Id,winnerId,player1MmrChange,player2MmrChange,status,createdAt,completedAt\n";
+
+    private static final RowMapper<Match> ROW_MAPPER = (rs, rowNum) -> {
+        Match match = new Match();
+        match.setId(rs.getString("id"));
+        match.setPlayer1Id(rs.getString("player1id"));
+        match.setPlayer2Id(rs.getString("player2id"));
+        match.setWinnerId(rs.getString("winner_id"));
+        match.setPlayer1MmrChange(rs.getObject("player1mmr_change", Integer.class));
+        match.setPlayer2MmrChange(rs.getObject("player2mmr_change", Integer.class));
+        String status = rs.getString("status");
+        match.setStatus(status != null ? Match.MatchStatus.valueOf(status) : null);
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        match.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        Timestamp completedAt = rs.getTimestamp("completed_at");
+        match.setCompletedAt(completedAt != null ? completedAt.toLocalDateTime() : null);
+        return match;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private JdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the whole result
+        streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public void export(LocalDateTime from, LocalDateTime to, boolean csv, boolean gzip, OutputStream target) throws IOException {
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(target, 8192) : null;
+        OutputStream out = new BufferedOutputStream(gzipOut != null ? gzipOut : target, 65536);
+        if (csv) {
+            out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<Object> args = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (from != null) {
+            conditions.add("created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            conditions.add("created_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        String sql = "select id, player1id, player2id, winner_id, player1mmr_change, player2mmr_change, status, created_at, completed_at from matches"
+                + (conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions))
+                + " order by created_at, id";
+
+        int[] rows = {0};
+        streamingJdbcTemplate.query(sql, rs -> {
+            try {
+                Match match = ROW_MAPPER.mapRow(rs, rows[0]);
+                if (csv) {
+                    out.write(toCsv(match).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    out.write(objectMapper.writeValueAsBytes(match));
+                    out.write('\n');
+                }
+                if (++rows[0] % 10000 == 0) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, args.toArray());
+
+        out.flush();
+        if (gzipOut != null) {
+            // Writes the gzip trailer without closing the response stream
+            gzipOut.finish();
+        }
+        target.flush();
+    }
+
+    private static String toCsv(Match match) {
+        return csvField(match.getId()) + ',' + csvField(match.getPlayer1Id()) + ','
+                + csvField(match.getPlayer2Id()) + ',' + csvField(match.getWinnerId()) + ','
+                + csvField(match.getPlayer1MmrChange()) + ',' + csvField(match.getPlayer2MmrChange()) + ','
+                + csvField(match.getStatus()) + ',' + csvField(match.getCreatedAt()) + ','
+                + csvField(match.getCompletedAt()) + '\n';
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
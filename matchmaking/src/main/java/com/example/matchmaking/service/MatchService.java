@@ -1,37 +1,54 @@
 package com.example.matchmaking.service;
 
+import com.example.common.cache.CachedPages;
 import com.example.matchmaking.entity.Match;
 import com.example.matchmaking.repository.MatchRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 
 @Service
 @RequiredArgsConstructor
 public class MatchService {
 
     private final MatchRepository matchRepository;
-    private final IdentityClient identityClient;
+    private final MmrSettlementService mmrSettlementService;
     private final LogService logService;
     private final MetricsService metricsService;
-
-    @CacheEvict(value = { "allMatches", "playerMatches" }, allEntries = true)
+    private final MeterRegistry meterRegistry;
+    private final CacheManager cacheManager;
+
+    // A new match is the first row of every page, so all cached pages shift; only the two players'
+    // histories change
+    @Caching(evict = {
+            @CacheEvict(value = "allMatches", allEntries = true),
+            @CacheEvict(value = "playerMatches", key = "#player1Id"),
+            @CacheEvict(value = "playerMatches", key = "#player2Id")
+    })
     public Match createMatch(String player1Id, String player2Id) {
         Match match = new Match();
         match.setPlayer1Id(player1Id);
         match.setPlayer2Id(player2Id);
         match.setStatus(Match.MatchStatus.IN_PROGRESS);
         matchRepository.save(match);
+        metricsService.matchCreated();
+        meterRegistry.counter("matchmaking.matches.created").increment();
 
         logService.log("INFO", "Match created: " + match.getId() + " between " + player1Id + " and " + player2Id);
 
@@ -39,9 +56,20 @@ public class MatchService {
     }
 
     @Transactional
-    @CachePut(value = "matches", key = "#matchId")
-    @CacheEvict(value = { "allMatches", "playerMatches" }, allEntries = true)
+    @CacheEvict(value = "matches", key = "#matchId")
     public Match completeMatch(String matchId, String winnerId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            Match result = finishMatch(matchId, winnerId);
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(meterRegistry.timer("matchmaking.match.complete", "outcome", outcome));
+        }
+    }
+
+    private Match finishMatch(String matchId, String winnerId) {
         Match match = matchRepository.findById(matchId)
                 .orElseThrow(() -> new RuntimeException("Match not found"));
 
@@ -59,31 +87,26 @@ public class MatchService {
 
         String loserId = winnerId.equals(match.getPlayer1Id()) ? match.getPlayer2Id() : match.getPlayer1Id();
 
-        Map<String, Object> winner = identityClient.getUserById(winnerId);
-        Map<String, Object> loser = identityClient.getUserById(loserId);
-
-        Integer winnerMmr = (Integer) winner.get("mmr");
-        Integer loserMmr = (Integer) loser.get("mmr");
-
         int mmrChange = 25;
-        int newWinnerMmr = winnerMmr + mmrChange;
-        int newLoserMmr = Math.max(0, loserMmr - mmrChange);
-
-        identityClient.updateUserMmr(winnerId, newWinnerMmr);
-        identityClient.updateUserMmr(loserId, newLoserMmr);
-
         match.setPlayer1MmrChange(winnerId.equals(match.getPlayer1Id()) ? mmrChange : -mmrChange);
         match.setPlayer2MmrChange(winnerId.equals(match.getPlayer2Id()) ? mmrChange : -mmrChange);
 
         matchRepository.save(match);
+        mmrSettlementService.settle(matchId, winnerId, loserId, mmrChange);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictCachedLists(match);
+            }
+        });
         logService.log("INFO", "Match completed: " + matchId + ", winner: " + winnerId);
 
         return match;
     }
 
-    @Cacheable(value = "allMatches")
+    @Cacheable(value = "allMatches", key = "#page + ':' + #size")
     public Page<Match> getAllMatches(int page, int size) {
-        PageRequest pageable = PageRequest.of(page, size);
+        PageRequest pageable = PageRequest.of(page, size, Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
 
         return matchRepository.findAll(pageable);
     }
@@ -98,4 +121,14 @@ public class MatchService {
     public List<Match> getPlayerMatches(String playerId) {
         return matchRepository.findByPlayer1IdOrPlayer2Id(playerId, playerId);
     }
+
+    // Completing a match keeps its position, so only the pages and histories that show it are dropped
+    private void evictCachedLists(Match match) {
+        Cache playerMatches = cacheManager.getCache("playerMatches");
+        if (playerMatches != null) {
+            playerMatches.evict(match.getPlayer1Id());
+            playerMatches.evict(match.getPlayer2Id());
+        }
+        CachedPages.evictRows(cacheManager, "allMatches", List.of(match.getId()));
+    }
 }
@@ -0,0 +1,258 @@
+package com.example.matchmaking.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.matchmaking.entity.QueueEntry;
+import com.example.matchmaking.repository.QueueRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps waiting players in memory, bucketed by MMR, and pairs them on a fixed tick.
+ * The acceptable MMR gap starts at {@code matchmaking.window.initial} and widens by
+ * {@code matchmaking.window.growth-per-second} for every second a player has waited. Two players are
+ * paired only when their gap fits both of their windows.
+ */
+@Service
+@RequiredArgsConstructor
+public class MatchmakingEngine {
+
+    private final QueueRepository queueRepository;
+    private final MatchService matchService;
+    private final LogService logService;
+    private final MetricsService metricsService;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${matchmaking.bucket-width:50}")
+    private int bucketWidth;
+
+    @Value("${matchmaking.window.initial:50}")
+    private int initialWindow;
+
+    @Value("${matchmaking.window.growth-per-second:10}")
+    private int windowGrowthPerSecond;
+
+    @Value("${matchmaking.window.max:500}")
+    private int maxWindow;
+
+    // Insertion order is join order, so iterating it visits the longest-waiting players first.
+    private final Map<String, QueueEntry> waiting = new LinkedHashMap<>();
+    private final TreeMap<Integer, Map<String, QueueEntry>> buckets = new TreeMap<>();
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("matchmaking.queue.depth", this, MatchmakingEngine::size).register(meterRegistry);
+        Gauge.builder("matchmaking.queue.oldest.wait", this, MatchmakingEngine::oldestWaitSeconds)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadQueue() {
+        List<QueueEntry> entries = queueRepository.findAll(Sort.by("joinedAt"));
+        entries.forEach(this::enqueue);
+        logService.log("INFO", "Matchmaking engine loaded " + entries.size() + " queued players");
+    }
+
+    public synchronized void enqueue(QueueEntry entry) {
+        if (waiting.putIfAbsent(entry.getPlayerId(), entry) == null) {
+            buckets.computeIfAbsent(bucketOf(entry), bucket -> new LinkedHashMap<>())
+                    .put(entry.getPlayerId(), entry);
+        }
+    }
+
+    public synchronized void remove(String playerId) {
+        QueueEntry entry = waiting.remove(playerId);
+        if (entry != null) {
+            removeFromBucket(entry);
+        }
+    }
+
+    public synchronized List<QueueEntry> getWaitingPlayers() {
+        return new ArrayList<>(waiting.values());
+    }
+
+    public synchronized int size() {
+        return waiting.size();
+    }
+
+    synchronized double oldestWaitSeconds() {
+        if (waiting.isEmpty()) {
+            return 0;
+        }
+        QueueEntry oldest = waiting.values().iterator().next();
+        return Math.max(0, Duration.between(oldest.getJoinedAt(), LocalDateTime.now()).toMillis() / 1000.0);
+    }
+
+    @Scheduled(fixedDelayString = "${matchmaking.tick:500}")
+    public void matchWaitingPlayers() {
+        LocalDateTime now = LocalDateTime.now();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<QueueEntry[]> pairs = findPairs(now);
+        sample.stop(meterRegistry.timer("matchmaking.engine.tick"));
+        if (pairs.isEmpty()) {
+            return;
+        }
+
+        meterRegistry.counter("matchmaking.engine.pairs").increment(pairs.size());
+
+        for (QueueEntry[] pair : pairs) {
+            if (claimAndCreateMatch(pair[0], pair[1])) {
+                recordWait(pair[0], now);
+                recordWait(pair[1], now);
+            } else {
+                requeue(pair[0]);
+                requeue(pair[1]);
+            }
+        }
+    }
+
+    // Each pair is claimed in its own transaction and the match is only created when both queue rows
+    // were still there to delete, so a player who left (or was paired by another replica) is never matched.
+    private boolean claimAndCreateMatch(QueueEntry first, QueueEntry second) {
+        String player1Id = first.getPlayerId();
+        String player2Id = second.getPlayerId();
+        try {
+            Boolean created = transactionTemplate.execute(status -> {
+                if (queueRepository.deleteByPlayerIdIn(List.of(player1Id, player2Id)) != 2) {
+                    status.setRollbackOnly();
+                    return false;
+                }
+                matchService.createMatch(player1Id, player2Id);
+                return true;
+            });
+            if (Boolean.TRUE.equals(created)) {
+                metricsService.queueLeft(2);
+                return true;
+            }
+        } catch (Exception e) {
+            logService.log("ERROR", "Failed to create match between " + player1Id + " and " + player2Id
+                    + ": " + e.getMessage());
+        }
+        return false;
+    }
+
+    // The claim was rolled back, so only players whose row is still queued go back in.
+    private void requeue(QueueEntry entry) {
+        boolean queued;
+        try {
+            queued = queueRepository.existsByPlayerId(entry.getPlayerId());
+        } catch (Exception e) {
+            // The next claim checks the row again
+            queued = true;
+        }
+        if (queued) {
+            enqueue(entry);
+        }
+    }
+
+    private synchronized List<QueueEntry[]> findPairs(LocalDateTime now) {
+        List<QueueEntry[]> pairs = new ArrayList<>();
+
+        for (QueueEntry entry : new ArrayList<>(waiting.values())) {
+            if (!waiting.containsKey(entry.getPlayerId())) {
+                continue;
+            }
+
+            QueueEntry opponent = findOpponent(entry, now);
+            if (opponent != null) {
+                waiting.remove(entry.getPlayerId());
+                waiting.remove(opponent.getPlayerId());
+                removeFromBucket(entry);
+                removeFromBucket(opponent);
+                pairs.add(new QueueEntry[] { entry, opponent });
+            }
+        }
+
+        return pairs;
+    }
+
+    private QueueEntry findOpponent(QueueEntry entry, LocalDateTime now) {
+        int window = windowFor(entry, now);
+        int mmr = mmrOf(entry);
+        int center = bucketOf(entry);
+        int maxOffset = window / bucketWidth + 1;
+
+        QueueEntry best = null;
+        int bestDiff = Integer.MAX_VALUE;
+
+        // Walk outwards from the player's own bucket; a bucket `offset` steps away cannot hold
+        // anyone closer than (offset - 1) * bucketWidth, so stop once that exceeds the best gap.
+        for (int offset = 0; offset <= maxOffset; offset++) {
+            if (best != null && (offset - 1) * bucketWidth > bestDiff) {
+                break;
+            }
+
+            int[] candidates = offset == 0 ? new int[] { center } : new int[] { center - offset, center + offset };
+            for (int bucket : candidates) {
+                Map<String, QueueEntry> players = buckets.get(bucket);
+                if (players == null) {
+                    continue;
+                }
+                for (QueueEntry candidate : players.values()) {
+                    if (candidate == entry) {
+                        continue;
+                    }
+                    // A player who just joined is not paired with someone far away just because the
+                    // other one has waited long enough to accept it
+                    int diff = Math.abs(mmrOf(candidate) - mmr);
+                    if (diff <= window && diff < bestDiff && diff <= windowFor(candidate, now)) {
+                        best = candidate;
+                        bestDiff = diff;
+                    }
+                }
+            }
+        }
+
+        return best;
+    }
+
+    private void recordWait(QueueEntry entry, LocalDateTime now) {
+        meterRegistry.timer("matchmaking.queue.wait")
+                .record(Math.max(0, Duration.between(entry.getJoinedAt(), now).toMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private int windowFor(QueueEntry entry, LocalDateTime now) {
+        long waitedSeconds = Math.max(0, Duration.between(entry.getJoinedAt(), now).getSeconds());
+        return (int) Math.min(maxWindow, initialWindow + waitedSeconds * windowGrowthPerSecond);
+    }
+
+    private void removeFromBucket(QueueEntry entry) {
+        int bucket = bucketOf(entry);
+        Map<String, QueueEntry> players = buckets.get(bucket);
+        if (players != null) {
+            players.remove(entry.getPlayerId());
+            if (players.isEmpty()) {
+                buckets.remove(bucket);
+            }
+        }
+    }
+
+    private int bucketOf(QueueEntry entry) {
+        return Math.floorDiv(mmrOf(entry), bucketWidth);
+    }
+
+    private int mmrOf(QueueEntry entry) {
+        return entry.getMmr() != null ? entry.getMmr() : 0;
+    }
+}
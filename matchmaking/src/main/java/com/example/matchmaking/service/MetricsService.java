@@ -3,17 +3,30 @@ package com.example.matchmaking.service;
 import com.example.matchmaking.repository.MatchRepository;
 import com.example.matchmaking.repository.QueueRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
+/**
+ * Row totals for /metrics are kept in counters that the services update as they create and delete
+ * rows, so a scrape runs no query. They are seeded on startup and reconciled with COUNT(*) every
+ * {@code metrics.reconcile-interval} ms to absorb rows changed by other instances.
+ */
 @Service
 @RequiredArgsConstructor
 public class MetricsService {
     private final MatchRepository matchRepository;
     private final QueueRepository queueRepository;
+    private final LogService logService;
     private final AtomicInteger activeUsers = new AtomicInteger(0);
+    private final LongAdder totalMatches = new LongAdder();
+    private final LongAdder queueSize = new LongAdder();
     private final long startTime = System.currentTimeMillis();
 
     public void incrementActiveUsers() {
@@ -24,14 +37,46 @@ public class MetricsService {
         activeUsers.decrementAndGet();
     }
 
+    public void matchCreated() {
+        totalMatches.increment();
+    }
+
+    public void queueJoined() {
+        queueSize.increment();
+    }
+
+    public void queueLeft(long players) {
+        queueSize.add(-players);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${metrics.reconcile-interval:300000}", fixedDelayString = "${metrics.reconcile-interval:300000}")
+    public void reconcile() {
+        try {
+            reconcile(totalMatches, matchRepository::count);
+            reconcile(queueSize, queueRepository::count);
+        } catch (Exception e) {
+            logService.log("ERROR", "Failed to reconcile metrics counters: " + e.getMessage());
+        }
+    }
+
     public Map<String, Object> getMetrics() {
         Map<String, Object> metrics = new HashMap<>();
         long uptime = (System.currentTimeMillis() - startTime) / 1000;
         metrics.put("uptime", uptime);
         metrics.put("activeUsers", activeUsers.get());
-        metrics.put("totalMatches", matchRepository.count());
-        metrics.put("queueSize", queueRepository.count());
+        metrics.put("totalMatches", totalMatches.sum());
+        metrics.put("queueSize", queueSize.sum());
         metrics.put("endpointCount", 7);
         return metrics;
     }
+
+    // Skipped when the counter moved while counting, since the count may or may not include that change
+    private static void reconcile(LongAdder counter, LongSupplier count) {
+        long before = counter.sum();
+        long actual = count.getAsLong();
+        if (counter.sum() == before) {
+            counter.add(actual - before);
+        }
+    }
 }
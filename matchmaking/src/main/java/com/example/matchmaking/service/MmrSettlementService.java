@@ -0,0 +1,131 @@
+package com.example.matchmaking.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.matchmaking.dto.MmrDeltaDTO;
+import com.example.matchmaking.entity.PendingMmrDelta;
+import com.example.matchmaking.repository.PendingMmrDeltaRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Records MMR deltas from completed matches in the {@code pending_mmr_deltas} outbox and applies them
+ * on the Identity service in batches, retrying failed batches with exponential backoff. A delta is only
+ * deleted once Identity has acknowledged it, so restarts and long outages lose nothing.
+ */
+@Service
+@RequiredArgsConstructor
+public class MmrSettlementService {
+
+    private final PendingMmrDeltaRepository pendingRepository;
+    private final IdentityClient identityClient;
+    private final LogService logService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${settlement.batch-size:500}")
+    private int batchSize;
+
+    @Value("${settlement.retry-backoff:1000}")
+    private long retryBackoff;
+
+    @Value("${settlement.max-retry-backoff:60000}")
+    private long maxRetryBackoff;
+
+    // Not `synchronized`: the flush blocks on HTTP and would pin its carrier thread in virtual-thread mode.
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private int consecutiveFailures;
+    private long retryAt;
+
+    // Outbox size as seen by this replica; kept in step with its own writes and deletes so scrapes never
+    // query the table, and corrected by reconcilePending for rows other replicas added or settled
+    private final AtomicLong pending = new AtomicLong();
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("matchmaking.settlement.pending", pending, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    // Runs inside the match completion transaction, so the deltas commit (or roll back) with the match
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void settle(String matchId, String winnerId, String loserId, int mmrChange) {
+        List<PendingMmrDelta> deltas = pendingRepository.saveAll(List.of(
+                new PendingMmrDelta(matchId, winnerId, mmrChange),
+                new PendingMmrDelta(matchId, loserId, -mmrChange)));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pending.addAndGet(deltas.size());
+            }
+        });
+    }
+
+    // Seeds the gauge at startup, then recounts the outbox every settlement.reconcile-interval
+    @Scheduled(initialDelay = 0, fixedDelayString = "${settlement.reconcile-interval:60000}")
+    public void reconcilePending() {
+        try {
+            pending.set(pendingRepository.count());
+        } catch (Exception e) {
+            logService.log("WARN", "Could not count pending MMR deltas: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${settlement.flush-interval:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (System.currentTimeMillis() < retryAt) {
+                return;
+            }
+
+            List<PendingMmrDelta> batch;
+            do {
+                batch = pendingRepository.findAllByOrderByCreatedAtAsc(PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    return;
+                }
+                try {
+                    identityClient.applyMmrDeltas(batch.stream()
+                            .map(pending -> new MmrDeltaDTO(pending.getMatchId(), pending.getUserId(), pending.getDelta()))
+                            .toList());
+                } catch (Exception e) {
+                    meterRegistry.counter("matchmaking.settlement.batches", "outcome", "failure").increment();
+                    backOff(batch.size(), e);
+                    return;
+                }
+                // Identity skips deltas it has already applied, so a crash before this delete only
+                // causes a harmless resend
+                pendingRepository.deleteAllByIdInBatch(batch.stream().map(PendingMmrDelta::getId).toList());
+                int settled = batch.size();
+                pending.updateAndGet(count -> Math.max(0, count - settled));
+                consecutiveFailures = 0;
+                meterRegistry.counter("matchmaking.settlement.batches", "outcome", "success").increment();
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            logService.log("ERROR", "MMR settlement flush failed: " + e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void backOff(int size, Exception cause) {
+        consecutiveFailures++;
+        long backoff = retryBackoff << Math.min(consecutiveFailures - 1, 16);
+        retryAt = System.currentTimeMillis() + Math.min(backoff, maxRetryBackoff);
+        logService.log("WARN", "MMR settlement of " + size + " deltas failed, retrying: " + cause.getMessage());
+    }
+}
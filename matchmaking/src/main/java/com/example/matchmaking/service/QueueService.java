@@ -1,16 +1,18 @@
 package com.example.matchmaking.service;
 
 import java.util.List;
-import java.util.Map;
 
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.example.matchmaking.dto.UserDTO;
 import com.example.matchmaking.entity.QueueEntry;
 import com.example.matchmaking.repository.QueueRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -21,30 +23,46 @@ public class QueueService {
     private final IdentityClient identityClient;
     private final LogService logService;
     private final MetricsService metricsService;
+    private final MatchmakingEngine matchmakingEngine;
+    private final MeterRegistry meterRegistry;
 
     @Transactional
-    @CacheEvict(value = "queue", allEntries = true)
     public QueueEntry joinQueue(String playerId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            QueueEntry result = addToQueue(playerId);
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(meterRegistry.timer("matchmaking.queue.join", "outcome", outcome));
+        }
+    }
+
+    private QueueEntry addToQueue(String playerId) {
         if (queueRepository.existsByPlayerId(playerId)) {
             logService.log("WARN", "Player already in queue: " + playerId);
             throw new RuntimeException("Player already in queue");
         }
 
-        Map<String, Object> user = identityClient.getUserById(playerId);
-        Integer mmr = (Integer) user.get("mmr");
+        UserDTO user = identityClient.getUserById(playerId);
+        Integer mmr = user.getMmr();
 
         QueueEntry entry = new QueueEntry();
         entry.setPlayerId(playerId);
         entry.setMmr(mmr);
         queueRepository.save(entry);
 
+        afterCommit(() -> {
+            matchmakingEngine.enqueue(entry);
+            metricsService.queueJoined();
+        });
         logService.log("INFO", "Player joined queue: " + playerId);
 
         return entry;
     }
 
     @Transactional
-    @CacheEvict(value = "queue", allEntries = true)
     public void leaveQueue(String playerId) {
         if (!queueRepository.existsByPlayerId(playerId)) {
             logService.log("WARN", "Player not in queue: " + playerId);
@@ -52,11 +70,25 @@ public class QueueService {
         }
 
         queueRepository.deleteByPlayerId(playerId);
+        afterCommit(() -> {
+            matchmakingEngine.remove(playerId);
+            metricsService.queueLeft(1);
+        });
         logService.log("INFO", "Player left queue: " + playerId);
     }
 
-    @Cacheable(value = "queue")
     public List<QueueEntry> getQueue() {
-        return queueRepository.findAll();
+        return matchmakingEngine.getWaitingPlayers();
+    }
+
+    // The engine may pair (and delete) an entry as soon as it sees it, so only hand it
+    // over once the row is actually committed.
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
@@ -2,10 +2,14 @@ package com.example.monitoring;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import com.example.common.client.HttpClientConfig;
+
 @SpringBootApplication
 @EnableScheduling
+@Import(HttpClientConfig.class)
 public class MonitoringApplication {
     public static void main(String[] args) {
         SpringApplication.run(MonitoringApplication.class, args);
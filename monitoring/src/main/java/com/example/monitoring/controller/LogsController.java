@@ -4,6 +4,7 @@ import com.example.monitoring.service.LogService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import java.util.List;
 import java.util.Map;
@@ -15,7 +16,10 @@ public class LogsController {
     private final LogService logService;
 
     @GetMapping("/logs")
-    public ResponseEntity<List<Map<String, String>>> getLogs() {
+    public ResponseEntity<List<Map<String, String>>> getLogs(@RequestParam(required = false) Long since) {
+        if (since != null) {
+            return ResponseEntity.ok(logService.getLogs(since));
+        }
         return ResponseEntity.ok(logService.getLogs());
     }
 }
@@ -1,13 +1,23 @@
 package com.example.monitoring.controller;
 
-import com.example.monitoring.entity.LogEntry;
+import com.example.monitoring.dto.LogPageDTO;
+import com.example.monitoring.dto.LogSearchResultDTO;
+import com.example.monitoring.dto.MetricSeriesDTO;
 import com.example.monitoring.entity.Metric;
+import com.example.monitoring.entity.MetricRollup;
+import com.example.monitoring.service.LogQueryService;
+import com.example.monitoring.service.LogSearchService;
+import com.example.monitoring.service.MetricQueryService;
 import com.example.monitoring.service.MonitoringService;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -16,6 +26,9 @@ import java.util.List;
 public class MonitoringController {
 
     private final MonitoringService monitoringService;
+    private final MetricQueryService metricQueryService;
+    private final LogQueryService logQueryService;
+    private final LogSearchService logSearchService;
 
     @GetMapping("/metrics")
     public ResponseEntity<Page<Metric>> getAllCollectedMetrics(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size) {
@@ -23,19 +36,72 @@ public class MonitoringController {
     }
 
     @GetMapping("/metrics/{serviceUrl}")
-    public ResponseEntity<List<Metric>> getMetricsByService(@PathVariable String serviceUrl) {
+    public ResponseEntity<List<Metric>> getMetricsByService(@PathVariable String serviceUrl,
+                                                            @RequestParam(required = false) String key,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
         String decodedUrl = java.net.URLDecoder.decode(serviceUrl, java.nio.charset.StandardCharsets.UTF_8);
-        return ResponseEntity.ok(monitoringService.getMetricsByService(decodedUrl));
+        return ResponseEntity.ok(monitoringService.getMetricsByService(decodedUrl, key, from, to));
+    }
+
+    @GetMapping("/metrics/{serviceUrl}/rollups")
+    public ResponseEntity<List<MetricRollup>> getMetricRollups(@PathVariable String serviceUrl,
+                                                               @RequestParam String key,
+                                                               @RequestParam(defaultValue = "1m") String resolution,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        String decodedUrl = java.net.URLDecoder.decode(serviceUrl, java.nio.charset.StandardCharsets.UTF_8);
+        return ResponseEntity.ok(monitoringService.getMetricRollups(decodedUrl, key, resolution, from, to));
+    }
+
+    @GetMapping("/metrics/{serviceUrl}/query")
+    public ResponseEntity<MetricSeriesDTO> queryMetric(@PathVariable String serviceUrl,
+                                                       @RequestParam String key,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                       @RequestParam(defaultValue = "1m") String step,
+                                                       @RequestParam(defaultValue = "avg") String aggregate) {
+        String decodedUrl = java.net.URLDecoder.decode(serviceUrl, java.nio.charset.StandardCharsets.UTF_8);
+        return ResponseEntity.ok(metricQueryService.query(decodedUrl, key, from, to, step, aggregate));
     }
 
     @GetMapping("/logs")
-    public ResponseEntity<List<LogEntry>> getAllCollectedLogs() {
-        return ResponseEntity.ok(monitoringService.getAllLogs());
+    public ResponseEntity<LogPageDTO> getAllCollectedLogs(@RequestParam(required = false) String level,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(logQueryService.findPage(null, level, from, to, cursor, limit));
+    }
+
+    @GetMapping("/logs/search")
+    public ResponseEntity<LogSearchResultDTO> searchLogs(@RequestParam String q,
+                                                         @RequestParam(required = false) String service,
+                                                         @RequestParam(required = false) String level,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                         @RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(logSearchService.search(q, service, level, from, to, page, size));
+    }
+
+    @GetMapping(value = "/logs/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamLogs(@RequestParam(required = false) String service,
+                                                            @RequestParam(required = false) String level,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        StreamingResponseBody body = out -> logQueryService.stream(service, level, from, to, out);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
     }
 
     @GetMapping("/logs/{serviceUrl}")
-    public ResponseEntity<List<LogEntry>> getLogsByService(@PathVariable String serviceUrl) {
+    public ResponseEntity<LogPageDTO> getLogsByService(@PathVariable String serviceUrl,
+                                                       @RequestParam(required = false) String level,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "100") int limit) {
         String decodedUrl = java.net.URLDecoder.decode(serviceUrl, java.nio.charset.StandardCharsets.UTF_8);
-        return ResponseEntity.ok(monitoringService.getLogsByService(decodedUrl));
+        return ResponseEntity.ok(logQueryService.findPage(decodedUrl, level, from, to, cursor, limit));
     }
 }
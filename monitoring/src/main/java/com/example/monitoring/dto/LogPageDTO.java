@@ -0,0 +1,16 @@
+package com.example.monitoring.dto;
+
+import com.example.monitoring.entity.LogEntry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogPageDTO {
+    private List<LogEntry> items;
+    // Pass back as "cursor" to get the next (older) page; null on the last page
+    private String nextCursor;
+}
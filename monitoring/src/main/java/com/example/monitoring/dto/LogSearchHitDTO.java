@@ -0,0 +1,14 @@
+package com.example.monitoring.dto;
+
+import com.example.monitoring.entity.LogEntry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogSearchHitDTO {
+    private double score;
+    private LogEntry entry;
+}
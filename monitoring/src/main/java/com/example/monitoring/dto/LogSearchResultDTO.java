@@ -0,0 +1,18 @@
+package com.example.monitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogSearchResultDTO {
+    private long total;
+    private int page;
+    private int size;
+    // False while the index is still being rebuilt from the database after a restart
+    private boolean complete;
+    private List<LogSearchHitDTO> hits;
+}
@@ -0,0 +1,14 @@
+package com.example.monitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricPointDTO {
+    private LocalDateTime time;
+    private Double value;
+}
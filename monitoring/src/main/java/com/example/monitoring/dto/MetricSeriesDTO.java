@@ -0,0 +1,17 @@
+package com.example.monitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricSeriesDTO {
+    private String serviceUrl;
+    private String metricKey;
+    private String aggregate;
+    private long stepSeconds;
+    private List<MetricPointDTO> points;
+}
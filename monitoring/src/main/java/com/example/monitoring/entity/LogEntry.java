@@ -8,7 +8,11 @@ import java.time.LocalDateTime;
 @Entity
 @Data
 @NoArgsConstructor
-@Table(name = "log_entries")
+@Table(name = "log_entries", indexes = {
+        @Index(name = "idx_log_entries_service_seq", columnList = "service_url, seq"),
+        @Index(name = "idx_log_entries_collected", columnList = "collected_at, id"),
+        @Index(name = "idx_log_entries_service_collected", columnList = "service_url, collected_at, id")
+})
 public class LogEntry {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -23,6 +27,9 @@ public class LogEntry {
     @Column(length = 1000)
     private String message;
 
+    // Sequence number assigned by the source service; null for entries recorded by the scraper itself
+    private Long seq;
+
     private LocalDateTime collectedAt = LocalDateTime.now();
 
     public LogEntry(String serviceUrl, String timestamp, String level, String message) {
@@ -31,4 +38,9 @@ public class LogEntry {
         this.level = level;
         this.message = message;
     }
+
+    public LogEntry(String serviceUrl, String timestamp, String level, String message, Long seq) {
+        this(serviceUrl, timestamp, level, message);
+        this.seq = seq;
+    }
 }
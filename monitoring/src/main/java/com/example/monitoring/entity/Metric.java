@@ -1,19 +1,18 @@
 package com.example.monitoring.entity;
 
-import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
-@Entity
+/**
+ * One sample of a series (serviceUrl, metricKey). Samples are stored compressed in
+ * {@link MetricChunk}s by {@code MetricRepository}, not as rows of their own.
+ */
 @Data
 @NoArgsConstructor
-@Table(name = "metrics")
+@AllArgsConstructor
 public class Metric {
-    @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private String id;
-
     private String serviceUrl;
 
     private String metricKey;
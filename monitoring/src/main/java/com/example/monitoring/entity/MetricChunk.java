@@ -0,0 +1,34 @@
+package com.example.monitoring.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A sealed block of consecutive samples of one series, Gorilla-compressed. Times are epoch millis.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "metric_chunks", indexes = {
+        @Index(name = "idx_metric_chunks_series_time", columnList = "service_url, metric_key, end_time"),
+        @Index(name = "idx_metric_chunks_end_time", columnList = "end_time")
+})
+public class MetricChunk {
+    @Id
+    private String id;
+
+    private String serviceUrl;
+
+    private String metricKey;
+
+    private Long startTime;
+
+    private Long endTime;
+
+    private Integer sampleCount;
+
+    @Lob
+    @Column(length = 65535)
+    private byte[] data;
+}
@@ -0,0 +1,121 @@
+package com.example.monitoring.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Aggregate of one series over a 1 minute or 1 hour bucket starting at {@code bucketStart} (epoch millis).
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "metric_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_metric_rollups_bucket",
+                columnNames = {"service_url", "metric_key", "resolution", "bucket_start"}),
+        indexes = @Index(name = "idx_metric_rollups_resolution_time", columnList = "resolution, bucket_start"))
+public class MetricRollup {
+
+    public enum Resolution {
+        MINUTE("1m", 60_000L),
+        HOUR("1h", 3_600_000L);
+
+        private final String code;
+        private final long millis;
+
+        Resolution(String code, long millis) {
+            this.code = code;
+            this.millis = millis;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public static Resolution fromCode(String code) {
+            for (Resolution resolution : values()) {
+                if (resolution.code.equals(code)) {
+                    return resolution;
+                }
+            }
+            throw new RuntimeException("Unknown resolution: " + code);
+        }
+    }
+
+    @Id
+    @JsonIgnore
+    private String id;
+
+    private String serviceUrl;
+
+    private String metricKey;
+
+    @Column(length = 8)
+    private String resolution;
+
+    private Long bucketStart;
+
+    private Double minValue;
+
+    private Double maxValue;
+
+    private Double sumValue;
+
+    private Long sampleCount;
+
+    private Double firstValue;
+
+    private Double lastValue;
+
+    // Epoch millis of the first and last sample in the bucket; null for buckets written before they were tracked
+    private Long firstTime;
+
+    private Long lastTime;
+
+    public MetricRollup(String serviceUrl, String metricKey, Resolution resolution, long bucketStart, double value,
+                        long timestamp) {
+        this.serviceUrl = serviceUrl;
+        this.metricKey = metricKey;
+        this.resolution = resolution.getCode();
+        this.bucketStart = bucketStart;
+        this.minValue = value;
+        this.maxValue = value;
+        this.sumValue = value;
+        this.sampleCount = 1L;
+        this.firstValue = value;
+        this.lastValue = value;
+        this.firstTime = timestamp;
+        this.lastTime = timestamp;
+    }
+
+    public void add(double value, long timestamp) {
+        minValue = Math.min(minValue, value);
+        maxValue = Math.max(maxValue, value);
+        sumValue += value;
+        sampleCount++;
+        lastValue = value;
+        lastTime = timestamp;
+    }
+
+    // Combines a bucket persisted earlier (e.g. before a restart) with the one still in memory
+    public void merge(MetricRollup later) {
+        minValue = Math.min(minValue, later.minValue);
+        maxValue = Math.max(maxValue, later.maxValue);
+        sumValue += later.sumValue;
+        sampleCount += later.sampleCount;
+        lastValue = later.lastValue;
+        if (firstTime == null) {
+            firstTime = later.firstTime;
+        }
+        lastTime = later.lastTime;
+    }
+
+    public Double getAvgValue() {
+        return sampleCount > 0 ? sumValue / sampleCount : null;
+    }
+}
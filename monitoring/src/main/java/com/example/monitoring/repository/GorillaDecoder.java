@@ -0,0 +1,87 @@
+package com.example.monitoring.repository;
+
+/**
+ * Reads back the samples written by {@link GorillaEncoder}. The sample count is stored next to the
+ * chunk, so the decoder knows when to stop without an end marker.
+ */
+class GorillaDecoder {
+
+    interface SampleConsumer {
+        void accept(long timestamp, double value);
+    }
+
+    private final byte[] data;
+    private long position;
+
+    private long timestamp;
+    private long delta;
+    private long valueBits;
+    private int leading;
+    private int trailing;
+
+    GorillaDecoder(byte[] data) {
+        this.data = data;
+    }
+
+    void decode(int count, SampleConsumer consumer) {
+        for (int i = 0; i < count; i++) {
+            if (i == 0) {
+                timestamp = readBits(64);
+                valueBits = readBits(64);
+            } else {
+                delta += readDeltaOfDelta();
+                timestamp += delta;
+                readValue();
+            }
+            consumer.accept(timestamp, Double.longBitsToDouble(valueBits));
+        }
+    }
+
+    private long readDeltaOfDelta() {
+        if (readBit() == 0) {
+            return 0;
+        }
+        if (readBit() == 0) {
+            return readSigned(7);
+        }
+        if (readBit() == 0) {
+            return readSigned(9);
+        }
+        if (readBit() == 0) {
+            return readSigned(12);
+        }
+        return readBits(64);
+    }
+
+    private void readValue() {
+        if (readBit() == 0) {
+            return;
+        }
+        if (readBit() == 1) {
+            leading = (int) readBits(5);
+            int significant = (int) readBits(6) + 1;
+            trailing = 64 - leading - significant;
+        }
+        int significant = 64 - leading - trailing;
+        valueBits ^= readBits(significant) << trailing;
+    }
+
+    private long readSigned(int bits) {
+        long value = readBits(bits);
+        return (value << (64 - bits)) >> (64 - bits);
+    }
+
+    private int readBit() {
+        int bit = (data[(int) (position >>> 3)] >>> (7 - (position & 7))) & 1;
+        position++;
+        return bit;
+    }
+
+    private long readBits(int bits) {
+        long value = 0;
+        for (int i = 0; i < bits; i++) {
+            value = (value << 1) | readBit();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.monitoring.repository;
+
+import java.util.Arrays;
+
+/**
+ * Compresses a series of (timestamp, value) samples the way Facebook's Gorilla TSDB does:
+ * timestamps as delta-of-deltas in variable-width buckets, values as the XOR with the previous value.
+ * A regular 5 s scrape costs a few bits per timestamp, and an unchanged value costs one bit.
+ */
+class GorillaEncoder {
+
+    private byte[] buffer = new byte[256];
+    private long bitLength;
+
+    private int count;
+    private long firstTimestamp;
+    private long previousTimestamp;
+    private long previousDelta;
+    private long previousValueBits;
+    private int previousLeading = -1;
+    private int previousTrailing;
+
+    void append(long timestamp, double value) {
+        long valueBits = Double.doubleToRawLongBits(value);
+        if (count == 0) {
+            writeBits(timestamp, 64);
+            writeBits(valueBits, 64);
+            firstTimestamp = timestamp;
+        } else {
+            long delta = timestamp - previousTimestamp;
+            writeDeltaOfDelta(delta - previousDelta);
+            writeValue(valueBits);
+            previousDelta = delta;
+        }
+        previousTimestamp = timestamp;
+        previousValueBits = valueBits;
+        count++;
+    }
+
+    private void writeDeltaOfDelta(long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            writeBits(0b0, 1);
+        } else if (fits(deltaOfDelta, 7)) {
+            writeBits(0b10, 2);
+            writeBits(deltaOfDelta, 7);
+        } else if (fits(deltaOfDelta, 9)) {
+            writeBits(0b110, 3);
+            writeBits(deltaOfDelta, 9);
+        } else if (fits(deltaOfDelta, 12)) {
+            writeBits(0b1110, 4);
+            writeBits(deltaOfDelta, 12);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(deltaOfDelta, 64);
+        }
+    }
+
+    private void writeValue(long valueBits) {
+        long xor = valueBits ^ previousValueBits;
+        if (xor == 0) {
+            writeBits(0b0, 1);
+            return;
+        }
+        writeBits(0b1, 1);
+
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+            // The meaningful bits fit inside the previous window: reuse it
+            writeBits(0b0, 1);
+            writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+        } else {
+            int significant = 64 - leading - trailing;
+            writeBits(0b1, 1);
+            writeBits(leading, 5);
+            writeBits(significant - 1, 6);
+            writeBits(xor >>> trailing, significant);
+            previousLeading = leading;
+            previousTrailing = trailing;
+        }
+    }
+
+    // Whether the value fits in a two's complement field of the given width
+    private static boolean fits(long value, int bits) {
+        long limit = 1L << (bits - 1);
+        return value >= -limit && value < limit;
+    }
+
+    private void writeBits(long value, int bits) {
+        ensureCapacity(bitLength + bits);
+        for (int i = bits - 1; i >= 0; i--) {
+            if (((value >>> i) & 1) != 0) {
+                buffer[(int) (bitLength >>> 3)] |= (byte) (0x80 >>> (bitLength & 7));
+            }
+            bitLength++;
+        }
+    }
+
+    private void ensureCapacity(long bits) {
+        int bytes = (int) ((bits + 7) >>> 3);
+        if (bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(bytes, buffer.length * 2));
+        }
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long getLastTimestamp() {
+        return previousTimestamp;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, (int) ((bitLength + 7) >>> 3));
+    }
+}
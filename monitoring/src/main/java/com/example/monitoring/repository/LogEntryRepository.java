@@ -2,6 +2,8 @@ package com.example.monitoring.repository;
 
 import com.example.monitoring.entity.LogEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -9,4 +11,7 @@ import java.util.List;
 public interface LogEntryRepository extends JpaRepository<LogEntry, String> {
     List<LogEntry> findByServiceUrl(String serviceUrl);
     List<LogEntry> findByLevel(String level);
+
+    @Query("select max(l.seq) from LogEntry l where l.serviceUrl = :serviceUrl")
+    Long findMaxSeqByServiceUrl(@Param("serviceUrl") String serviceUrl);
 }
@@ -1,12 +1,440 @@
 package com.example.monitoring.repository;
 
 import com.example.monitoring.entity.Metric;
-import org.springframework.data.jpa.repository.JpaRepository;
+import com.example.monitoring.entity.MetricRollup;
+import com.example.monitoring.entity.MetricRollup.Resolution;
+import com.example.monitoring.service.LogService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Repository;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Time-series store for scraped metrics. Each series (serviceUrl, metricKey) appends to an in-memory
+ * Gorilla-compressed head chunk; once it holds {@code monitor.tsdb.chunk-samples} samples it is sealed
+ * and written to {@code metric_chunks} as a single BLOB. Every sample also updates the series' 1 minute
+ * and 1 hour rollups, which are upserted into {@code metric_rollups} when their bucket closes.
+ * Every {@code monitor.tsdb.checkpoint-interval} ms the unsealed head chunks and open rollups are written
+ * out as well, and writes that failed earlier are retried. Each resolution has its own retention.
+ */
 @Repository
-public interface MetricRepository extends JpaRepository<Metric, String> {
-    List<Metric> findByServiceUrl(String serviceUrl);
-    List<Metric> findByMetricKey(String metricKey);
+@RequiredArgsConstructor
+public class MetricRepository {
+
+    // A head chunk keeps its id from its first checkpoint until it is sealed, so each write replaces the last
+    private static final String UPSERT_CHUNK =
+            "insert into metric_chunks (id, service_url, metric_key, start_time, end_time, sample_count, data) "
+                    + "values (?, ?, ?, ?, ?, ?, ?) on duplicate key update end_time = values(end_time), "
+                    + "sample_count = values(sample_count), data = values(data)";
+    private static final String UPSERT_ROLLUP =
+            "insert into metric_rollups (id, service_url, metric_key, resolution, bucket_start, min_value, max_value, "
+                    + "sum_value, sample_count, first_value, last_value, first_time, last_time) "
+                    + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                    + "on duplicate key update min_value = least(min_value, values(min_value)), "
+                    + "max_value = greatest(max_value, values(max_value)), sum_value = sum_value + values(sum_value), "
+                    + "sample_count = sample_count + values(sample_count), last_value = values(last_value), "
+                    + "first_time = coalesce(first_time, values(first_time)), last_time = values(last_time)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LogService logService;
+
+    @Value("${monitor.tsdb.chunk-samples:120}")
+    private int chunkSamples;
+
+    @Value("${monitor.tsdb.chunk-max-span:3600000}")
+    private long chunkMaxSpan;
+
+    @Value("${monitor.tsdb.retention.raw:2d}")
+    private Duration rawRetention;
+
+    @Value("${monitor.tsdb.retention.minute:30d}")
+    private Duration minuteRetention;
+
+    @Value("${monitor.tsdb.retention.hour:365d}")
+    private Duration hourRetention;
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    public void saveAll(Collection<Metric> metrics) {
+        for (Metric metric : metrics) {
+            save(metric);
+        }
+    }
+
+    public void save(Metric metric) {
+        double value = metric.getMetricValue() != null ? metric.getMetricValue() : 0.0;
+        series.computeIfAbsent(seriesId(metric.getServiceUrl(), metric.getMetricKey()),
+                        id -> new Series(metric.getServiceUrl(), metric.getMetricKey()))
+                .append(toMillis(metric.getCollectedAt()), value);
+    }
+
+    /** Latest sample of every series seen since startup, ordered by service and key. */
+    public List<Metric> findLatest() {
+        List<Metric> latest = new ArrayList<>();
+        for (Series s : series.values()) {
+            Metric metric = s.latest();
+            if (metric != null) {
+                latest.add(metric);
+            }
+        }
+        latest.sort(Comparator.comparing(Metric::getServiceUrl).thenComparing(Metric::getMetricKey));
+        return latest;
+    }
+
+    /** Raw samples of a service in [from, to], optionally restricted to one key, ordered by key and time. */
+    public List<Metric> findRange(String serviceUrl, String metricKey, LocalDateTime from, LocalDateTime to) {
+        long fromMillis = toMillis(from);
+        long toMillis = toMillis(to);
+
+        // Snapshot memory first: a chunk sealed after this point is then already part of the snapshot,
+        // and is skipped when it shows up in the database below.
+        Map<String, List<ChunkData>> inMemory = new HashMap<>();
+        for (Series s : series.values()) {
+            if (s.serviceUrl.equals(serviceUrl) && (metricKey == null || s.metricKey.equals(metricKey))) {
+                inMemory.put(s.metricKey, s.snapshot());
+            }
+        }
+
+        Map<String, List<ChunkData>> chunks = new HashMap<>();
+        StringBuilder sql = new StringBuilder("select metric_key, start_time, end_time, sample_count, data from metric_chunks "
+                + "where service_url = ? and end_time >= ? and start_time <= ?");
+        List<Object> args = new ArrayList<>(List.of(serviceUrl, fromMillis, toMillis));
+        if (metricKey != null) {
+            sql.append(" and metric_key = ?");
+            args.add(metricKey);
+        }
+        jdbcTemplate.query(sql.toString(), rs -> {
+            String key = rs.getString("metric_key");
+            long startTime = rs.getLong("start_time");
+            List<ChunkData> memory = inMemory.get(key);
+            if (memory != null && !memory.isEmpty() && startTime >= memory.get(0).startTime()) {
+                return;
+            }
+            chunks.computeIfAbsent(key, k -> new ArrayList<>())
+                    .add(new ChunkData(null, startTime, rs.getLong("end_time"), rs.getInt("sample_count"), rs.getBytes("data")));
+        }, args.toArray());
+        inMemory.forEach((key, memory) -> chunks.computeIfAbsent(key, k -> new ArrayList<>()).addAll(memory));
+
+        List<Metric> result = new ArrayList<>();
+        chunks.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    entry.getValue().sort(Comparator.comparingLong(ChunkData::startTime));
+                    for (ChunkData chunk : entry.getValue()) {
+                        new GorillaDecoder(chunk.data()).decode(chunk.count(), (timestamp, value) -> {
+                            if (timestamp >= fromMillis && timestamp <= toMillis) {
+                                result.add(new Metric(serviceUrl, entry.getKey(), value, toLocalDateTime(timestamp)));
+                            }
+                        });
+                    }
+                });
+        return result;
+    }
+
+    /** Rollup buckets of one series that start in [from, to], oldest first. */
+    public List<MetricRollup> findRollups(String serviceUrl, String metricKey, Resolution resolution,
+                                          LocalDateTime from, LocalDateTime to) {
+        long fromMillis = Math.floorDiv(toMillis(from), resolution.getMillis()) * resolution.getMillis();
+        long toMillis = toMillis(to);
+
+        Map<Long, MetricRollup> buckets = new HashMap<>();
+        jdbcTemplate.query("select bucket_start, min_value, max_value, sum_value, sample_count, first_value, last_value, "
+                        + "first_time, last_time "
+                        + "from metric_rollups where service_url = ? and metric_key = ? and resolution = ? "
+                        + "and bucket_start between ? and ?",
+                rs -> {
+                    MetricRollup rollup = new MetricRollup();
+                    rollup.setServiceUrl(serviceUrl);
+                    rollup.setMetricKey(metricKey);
+                    rollup.setResolution(resolution.getCode());
+                    rollup.setBucketStart(rs.getLong("bucket_start"));
+                    rollup.setMinValue(rs.getDouble("min_value"));
+                    rollup.setMaxValue(rs.getDouble("max_value"));
+                    rollup.setSumValue(rs.getDouble("sum_value"));
+                    rollup.setSampleCount(rs.getLong("sample_count"));
+                    rollup.setFirstValue(rs.getDouble("first_value"));
+                    rollup.setLastValue(rs.getDouble("last_value"));
+                    rollup.setFirstTime(rs.getObject("first_time", Long.class));
+                    rollup.setLastTime(rs.getObject("last_time", Long.class));
+                    buckets.put(rollup.getBucketStart(), rollup);
+                },
+                serviceUrl, metricKey, resolution.getCode(), fromMillis, toMillis);
+
+        Series s = series.get(seriesId(serviceUrl, metricKey));
+        List<MetricRollup> unwritten = s != null ? s.unwrittenRollups(resolution) : List.of();
+        for (MetricRollup rollup : unwritten) {
+            if (rollup.getBucketStart() >= fromMillis && rollup.getBucketStart() <= toMillis) {
+                buckets.merge(rollup.getBucketStart(), rollup, (stored, current) -> {
+                    stored.merge(current);
+                    return stored;
+                });
+            }
+        }
+
+        List<MetricRollup> result = new ArrayList<>(buckets.values());
+        result.sort(Comparator.comparingLong(MetricRollup::getBucketStart));
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${monitor.tsdb.retention.check-interval:3600000}")
+    public void enforceRetention() {
+        long now = System.currentTimeMillis();
+        try {
+            int chunks = jdbcTemplate.update("delete from metric_chunks where end_time < ?",
+                    now - rawRetention.toMillis());
+            int minutes = jdbcTemplate.update("delete from metric_rollups where resolution = ? and bucket_start < ?",
+                    Resolution.MINUTE.getCode(), now - minuteRetention.toMillis());
+            int hours = jdbcTemplate.update("delete from metric_rollups where resolution = ? and bucket_start < ?",
+                    Resolution.HOUR.getCode(), now - hourRetention.toMillis());
+            logService.log("INFO", "Metric retention removed " + chunks + " chunks, " + minutes
+                    + " minute rollups and " + hours + " hour rollups");
+        } catch (Exception e) {
+            logService.log("ERROR", "Metric retention failed: " + e.getMessage());
+        }
+    }
+
+    // Bounds what a crash can lose to one checkpoint interval, and retries writes that failed earlier
+    @Scheduled(fixedDelayString = "${monitor.tsdb.checkpoint-interval:60000}")
+    public void checkpoint() {
+        for (Series s : series.values()) {
+            s.checkpoint();
+        }
+    }
+
+    // Seals every head chunk and writes open rollup buckets so a restart loses nothing
+    @PreDestroy
+    public void flush() {
+        for (Series s : series.values()) {
+            s.flush();
+        }
+    }
+
+    private static String seriesId(String serviceUrl, String metricKey) {
+        return serviceUrl + '\n' + metricKey;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private record ChunkData(String id, long startTime, long endTime, int count, byte[] data) {
+    }
+
+    private class Series {
+        private final String serviceUrl;
+        private final String metricKey;
+
+        private GorillaEncoder head = new GorillaEncoder();
+        private String headId = UUID.randomUUID().toString();
+        // Samples of the head chunk already written by a checkpoint
+        private int checkpointed;
+        // Sealed chunks and closed rollups whose write failed; retried on the next checkpoint and still
+        // served to readers
+        private final List<ChunkData> unsaved = new ArrayList<>();
+        private final List<MetricRollup> unsavedRollups = new ArrayList<>();
+        private final Map<Resolution, MetricRollup> rollups = new HashMap<>();
+        // A lock rather than synchronized: sealing writes to the database, which would pin a virtual thread
+        private final ReentrantLock lock = new ReentrantLock();
+        private double lastValue;
+
+        Series(String serviceUrl, String metricKey) {
+            this.serviceUrl = serviceUrl;
+            this.metricKey = metricKey;
+        }
+
+        void append(long timestamp, double value) {
+            lock.lock();
+            try {
+                if (head.getCount() > 0 && timestamp < head.getLastTimestamp()) {
+                    return;
+                }
+                if (head.getCount() >= chunkSamples
+                        || (head.getCount() > 0 && timestamp - head.getFirstTimestamp() >= chunkMaxSpan)) {
+                    seal();
+                }
+                head.append(timestamp, value);
+                lastValue = value;
+
+                for (Resolution resolution : Resolution.values()) {
+                    long bucketStart = Math.floorDiv(timestamp, resolution.getMillis()) * resolution.getMillis();
+                    MetricRollup rollup = rollups.get(resolution);
+                    if (rollup != null && rollup.getBucketStart() == bucketStart) {
+                        rollup.add(value, timestamp);
+                    } else {
+                        if (rollup != null) {
+                            writeRollup(rollup);
+                        }
+                        rollups.put(resolution, new MetricRollup(serviceUrl, metricKey, resolution, bucketStart, value,
+                                timestamp));
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Metric latest() {
+            lock.lock();
+            try {
+                if (head.getCount() == 0) {
+                    return null;
+                }
+                return new Metric(serviceUrl, metricKey, lastValue, toLocalDateTime(head.getLastTimestamp()));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<ChunkData> snapshot() {
+            lock.lock();
+            try {
+                List<ChunkData> chunks = new ArrayList<>(unsaved);
+                if (head.getCount() > 0) {
+                    chunks.add(headChunk());
+                }
+                return chunks;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Rollups not in the database yet: failed writes first, then the open bucket. Readers get copies.
+        List<MetricRollup> unwrittenRollups(Resolution resolution) {
+            lock.lock();
+            try {
+                List<MetricRollup> result = new ArrayList<>();
+                for (MetricRollup rollup : unsavedRollups) {
+                    if (rollup.getResolution().equals(resolution.getCode())) {
+                        result.add(copy(rollup, resolution));
+                    }
+                }
+                MetricRollup open = rollups.get(resolution);
+                if (open != null) {
+                    result.add(copy(open, resolution));
+                }
+                return result;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void checkpoint() {
+            lock.lock();
+            try {
+                if (writeUnsaved() && head.getCount() > checkpointed) {
+                    ChunkData chunk = headChunk();
+                    if (writeChunk(chunk)) {
+                        checkpointed = chunk.count();
+                    }
+                }
+                writeUnsavedRollups();
+                // Rollup upserts add up, so an open bucket is written once and then starts over empty;
+                // the next sample in the same bucket opens a new partial rollup that is merged on write
+                rollups.values().forEach(this::writeRollup);
+                rollups.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void flush() {
+            lock.lock();
+            try {
+                if (head.getCount() > 0) {
+                    seal();
+                }
+                writeUnsavedRollups();
+                rollups.values().forEach(this::writeRollup);
+                rollups.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void seal() {
+            unsaved.add(headChunk());
+            head = new GorillaEncoder();
+            headId = UUID.randomUUID().toString();
+            checkpointed = 0;
+            writeUnsaved();
+        }
+
+        // Oldest first, stopping at the first failure
+        private boolean writeUnsaved() {
+            while (!unsaved.isEmpty()) {
+                if (!writeChunk(unsaved.get(0))) {
+                    return false;
+                }
+                unsaved.remove(0);
+            }
+            return true;
+        }
+
+        private boolean writeChunk(ChunkData chunk) {
+            try {
+                jdbcTemplate.update(UPSERT_CHUNK, chunk.id(), serviceUrl, metricKey,
+                        chunk.startTime(), chunk.endTime(), chunk.count(), chunk.data());
+                return true;
+            } catch (Exception e) {
+                logService.log("ERROR", "Failed to write metric chunk for " + serviceUrl + " " + metricKey
+                        + ": " + e.getMessage());
+                return false;
+            }
+        }
+
+        private void writeUnsavedRollups() {
+            List<MetricRollup> pending = new ArrayList<>(unsavedRollups);
+            unsavedRollups.clear();
+            pending.forEach(this::writeRollup);
+        }
+
+        private ChunkData headChunk() {
+            return new ChunkData(headId, head.getFirstTimestamp(), head.getLastTimestamp(), head.getCount(), head.toByteArray());
+        }
+
+        private void writeRollup(MetricRollup rollup) {
+            try {
+                jdbcTemplate.update(UPSERT_ROLLUP, UUID.randomUUID().toString(), serviceUrl, metricKey,
+                        rollup.getResolution(), rollup.getBucketStart(), rollup.getMinValue(), rollup.getMaxValue(),
+                        rollup.getSumValue(), rollup.getSampleCount(), rollup.getFirstValue(), rollup.getLastValue(),
+                        rollup.getFirstTime(), rollup.getLastTime());
+            } catch (Exception e) {
+                unsavedRollups.add(rollup);
+                logService.log("ERROR", "Failed to write " + rollup.getResolution() + " rollup for " + serviceUrl
+                        + " " + metricKey + ": " + e.getMessage());
+            }
+        }
+
+        private MetricRollup copy(MetricRollup rollup, Resolution resolution) {
+            MetricRollup copy = new MetricRollup(serviceUrl, metricKey, resolution, rollup.getBucketStart(), 0, 0);
+            copy.setMinValue(rollup.getMinValue());
+            copy.setMaxValue(rollup.getMaxValue());
+            copy.setSumValue(rollup.getSumValue());
+            copy.setSampleCount(rollup.getSampleCount());
+            copy.setFirstValue(rollup.getFirstValue());
+            copy.setLastValue(rollup.getLastValue());
+            copy.setFirstTime(rollup.getFirstTime());
+            copy.setLastTime(rollup.getLastTime());
+            return copy;
+        }
+    }
 }
@@ -0,0 +1,196 @@
+package com.example.monitoring.service;
+
+import com.example.monitoring.entity.LogEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects scraped log entries in memory and writes them with JDBC batch inserts, either once
+ * {@code monitor.ingest.batch-size} rows are pending or every {@code monitor.ingest.flush-interval} ms.
+ * At most {@code monitor.ingest.capacity} rows are held; beyond that new rows are rejected so the scrape
+ * keeps its cursor and fetches them again later. A failed write is retried on the next flush, up to
+ * {@code monitor.ingest.max-attempts} times. Metrics go to {@code MetricRepository} instead.
+ */
+@Service
+@RequiredArgsConstructor
+public class IngestBuffer {
+
+    private static final String INSERT_LOG =
+            "insert into log_entries (id, service_url, timestamp, level, message, seq, collected_at) values (?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final LogService logService;
+    private final LogSearchService logSearchService;
+
+    @Value("${monitor.ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${monitor.ingest.capacity:50000}")
+    private int capacity;
+
+    @Value("${monitor.ingest.max-attempts:5}")
+    private int maxAttempts;
+
+    // One element per addLogs call, so each caller learns when all of its rows are stored
+    private final LinkedBlockingDeque<Pending> logs = new LinkedBlockingDeque<>();
+    private final AtomicInteger pendingRows = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private Counter logRows;
+    private Counter droppedRows;
+    private Counter rejectedRows;
+
+    @PostConstruct
+    public void init() {
+        logRows = meterRegistry.counter("monitor.ingest.rows", "type", "log");
+        droppedRows = meterRegistry.counter("monitor.ingest.dropped");
+        rejectedRows = meterRegistry.counter("monitor.ingest.rejected");
+        Gauge.builder("monitor.ingest.pending", pendingRows, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues rows for the next batch. The returned future completes once they are committed, or
+     * exceptionally when the buffer is full or they could not be written after the configured attempts.
+     */
+    public CompletableFuture<Void> addLogs(Collection<LogEntry> rows) {
+        if (pendingRows.addAndGet(rows.size()) > capacity) {
+            pendingRows.addAndGet(-rows.size());
+            rejectedRows.increment(rows.size());
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "Ingest buffer full (" + capacity + " rows pending)"));
+        }
+        Pending pending = new Pending(new ArrayList<>(rows));
+        logs.add(pending);
+        flushIfFull();
+        return pending.stored;
+    }
+
+    // A full buffer is written by the scrape that filled it, unless a flush is already running.
+    private void flushIfFull() {
+        if (pendingRows.get() >= batchSize && flushLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${monitor.ingest.flush-interval:1000}")
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Stops at the first failed batch; it stays at the head of the queue for the next flush.
+    private void drain() {
+        List<Pending> batch = new ArrayList<>();
+        while (!logs.isEmpty()) {
+            int rows = 0;
+            Pending next;
+            while ((next = logs.peek()) != null && (batch.isEmpty() || rows + next.rows.size() <= batchSize)) {
+                logs.poll();
+                batch.add(next);
+                rows += next.rows.size();
+            }
+            if (!write(batch, rows)) {
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private boolean write(List<Pending> batch, int rows) {
+        List<LogEntry> entries = new ArrayList<>(rows);
+        batch.forEach(pending -> entries.addAll(pending.rows));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            // One transaction, so a failed batch leaves nothing behind and can be written again as a whole
+            transactionTemplate.executeWithoutResult(status -> insertLogs(entries));
+            outcome = "success";
+        } catch (Exception e) {
+            logService.log("ERROR", "Failed to write " + rows + " log rows: " + e.getMessage());
+            retry(batch, e);
+            return false;
+        } finally {
+            sample.stop(meterRegistry.timer("monitor.ingest.flush", "outcome", outcome));
+        }
+        pendingRows.addAndGet(-rows);
+        logRows.increment(rows);
+        logSearchService.index(entries);
+        batch.forEach(pending -> pending.stored.complete(null));
+        return true;
+    }
+
+    private void retry(List<Pending> batch, Exception cause) {
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            Pending pending = batch.get(i);
+            if (++pending.attempts < maxAttempts) {
+                logs.addFirst(pending);
+            } else {
+                pendingRows.addAndGet(-pending.rows.size());
+                droppedRows.increment(pending.rows.size());
+                pending.stored.completeExceptionally(cause);
+            }
+        }
+    }
+
+    private void insertLogs(List<LogEntry> batch) {
+        for (LogEntry log : batch) {
+            if (log.getId() == null) {
+                log.setId(UUID.randomUUID().toString());
+            }
+            if (log.getMessage() != null && log.getMessage().length() > MAX_MESSAGE_LENGTH) {
+                log.setMessage(log.getMessage().substring(0, MAX_MESSAGE_LENGTH));
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_LOG, batch, batch.size(), (ps, log) -> {
+            ps.setString(1, log.getId());
+            ps.setString(2, log.getServiceUrl());
+            ps.setString(3, log.getTimestamp());
+            ps.setString(4, log.getLevel());
+            ps.setString(5, log.getMessage());
+            ps.setObject(6, log.getSeq());
+            ps.setTimestamp(7, Timestamp.valueOf(log.getCollectedAt()));
+        });
+    }
+
+    private static class Pending {
+        private final List<LogEntry> rows;
+        private final CompletableFuture<Void> stored = new CompletableFuture<>();
+        private int attempts;
+
+        Pending(List<LogEntry> rows) {
+            this.rows = rows;
+        }
+    }
+}
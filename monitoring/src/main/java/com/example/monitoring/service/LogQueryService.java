@@ -0,0 +1,140 @@
+package com.example.monitoring.service;
+
+import com.example.monitoring.dto.LogPageDTO;
+import com.example.monitoring.entity.LogEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Reads collected log entries newest first. Pages use keyset pagination on (collected_at, id), so
+ * fetching page 1000 costs the same as page 1, and exports are streamed row by row from MySQL.
+ */
+@Service
+@RequiredArgsConstructor
+public class LogQueryService {
+
+    private static final String COLUMNS = "select id, service_url, timestamp, level, message, seq, collected_at from log_entries";
+
+    private static final RowMapper<LogEntry> ROW_MAPPER = (rs, rowNum) -> {
+        LogEntry entry = new LogEntry(rs.getString("service_url"), rs.getString("timestamp"),
+                rs.getString("level"), rs.getString("message"), rs.getObject("seq", Long.class));
+        entry.setId(rs.getString("id"));
+        entry.setCollectedAt(rs.getTimestamp("collected_at").toLocalDateTime());
+        return entry;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${monitor.query.max-page-size:1000}")
+    private int maxPageSize;
+
+    private JdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the whole result
+        streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public LogPageDTO findPage(String serviceUrl, String level, LocalDateTime from, LocalDateTime to,
+                               String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(COLUMNS).append(where(serviceUrl, level, from, to, args));
+
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            Timestamp collectedAt = Timestamp.valueOf(LocalDateTime.parse(position[0]));
+            sql.append(args.isEmpty() ? " where" : " and")
+                    .append(" (collected_at < ? or (collected_at = ? and id < ?))");
+            args.add(collectedAt);
+            args.add(collectedAt);
+            args.add(position[1]);
+        }
+        sql.append(" order by collected_at desc, id desc limit ?");
+        args.add(pageSize + 1);
+
+        List<LogEntry> items = jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            LogEntry last = items.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getCollectedAt(), last.getId());
+        }
+        return new LogPageDTO(items, nextCursor);
+    }
+
+    /** Writes every matching entry as one JSON object per line (NDJSON), newest first. */
+    public void stream(String serviceUrl, String level, LocalDateTime from, LocalDateTime to, OutputStream out) {
+        List<Object> args = new ArrayList<>();
+        String sql = COLUMNS + where(serviceUrl, level, from, to, args) + " order by collected_at desc, id desc";
+        int[] rows = {0};
+
+        streamingJdbcTemplate.query(sql, rs -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(ROW_MAPPER.mapRow(rs, rows[0])));
+                out.write('\n');
+                if (++rows[0] % 1000 == 0) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, args.toArray());
+    }
+
+    private static String where(String serviceUrl, String level, LocalDateTime from, LocalDateTime to, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (serviceUrl != null) {
+            conditions.add("service_url = ?");
+            args.add(serviceUrl);
+        }
+        if (level != null) {
+            conditions.add("level = ?");
+            args.add(level);
+        }
+        if (from != null) {
+            conditions.add("collected_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            conditions.add("collected_at <= ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    private static String encodeCursor(LocalDateTime collectedAt, String id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((collectedAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            if (position.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            LocalDateTime.parse(position[0]);
+            return position;
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package com.example.monitoring.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over log messages. Each term keeps a posting list of the documents that
+ * contain it, in insertion order, with the token positions inside each document for phrase matching.
+ * Queries intersect the posting lists starting from the rarest term, check service/level/time filters
+ * against per-document columns, and rank with BM25.
+ * <p>
+ * Documents are stored in segments of at most {@code segmentSize} documents. The index is bounded by
+ * dropping whole segments, postings included: those whose newest entry is older than {@code maxAge}, and
+ * the oldest ones while more than {@code maxDocuments} documents are held.
+ */
+class LogSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    record Hit(String id, double score) {
+    }
+
+    record Result(long total, List<Hit> hits) {
+    }
+
+    private final int segmentSize;
+    private final int maxDocuments;
+    private final long maxAge;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Segment> segments = new ArrayList<>();
+    // Segment new entries are appended to, and the one the startup rebuild is filling
+    private Segment live;
+    private Segment loading;
+    private int documentCount;
+    private long totalLength;
+
+    private final Map<String, Integer> serviceCodes = new HashMap<>();
+    private final Map<String, Integer> levelCodes = new HashMap<>();
+
+    LogSearchIndex(int segmentSize, int maxDocuments, long maxAge) {
+        this.segmentSize = segmentSize;
+        this.maxDocuments = maxDocuments;
+        this.maxAge = maxAge;
+    }
+
+    void add(String id, String serviceUrl, String level, long time, String message) {
+        List<String> tokens = tokenize(message);
+        lock.writeLock().lock();
+        try {
+            if (live == null || live.documentCount == segmentSize) {
+                live = openSegment();
+            }
+            append(live, id, serviceUrl, level, time, tokens);
+            evict(System.currentTimeMillis());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds an entry stored before this process started. The rebuild loads newest first, so once the index
+     * is full the remaining entries would be the first to go; returns false to tell it to stop.
+     */
+    boolean load(String id, String serviceUrl, String level, long time, String message) {
+        List<String> tokens = tokenize(message);
+        lock.writeLock().lock();
+        try {
+            if (documentCount >= maxDocuments) {
+                return false;
+            }
+            if (loading == null || loading.documentCount == segmentSize) {
+                loading = openSegment();
+            }
+            append(loading, id, serviceUrl, level, time, tokens);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Drops segments whose newest entry is older than the maximum age. */
+    void expire(long now) {
+        lock.writeLock().lock();
+        try {
+            evict(now);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Every clause must match: a clause of one term matches documents containing it, a longer clause
+     * matches documents containing its terms next to each other. Null filters are ignored.
+     */
+    Result search(List<List<String>> clauses, String serviceUrl, String level, Long from, Long to, int limit) {
+        lock.readLock().lock();
+        try {
+            Set<String> terms = new LinkedHashSet<>();
+            clauses.forEach(terms::addAll);
+            if (terms.isEmpty()) {
+                return new Result(0, List.of());
+            }
+
+            Integer service = serviceUrl != null ? serviceCodes.get(serviceUrl) : null;
+            Integer levelCode = level != null ? levelCodes.get(level) : null;
+            if ((serviceUrl != null && service == null) || (level != null && levelCode == null)) {
+                return new Result(0, List.of());
+            }
+
+            // BM25 statistics span the whole index, so scores are comparable across segments
+            List<String> termOrder = new ArrayList<>(terms);
+            double[] idf = new double[termOrder.size()];
+            for (int i = 0; i < termOrder.size(); i++) {
+                long df = 0;
+                for (Segment segment : segments) {
+                    Postings list = segment.postings.get(termOrder.get(i));
+                    df += list != null ? list.size : 0;
+                }
+                if (df == 0) {
+                    return new Result(0, List.of());
+                }
+                idf[i] = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+            }
+            double averageLength = documentCount > 0 ? (double) totalLength / documentCount : 1;
+
+            PriorityQueue<Hit> top = new PriorityQueue<>((a, b) -> Double.compare(a.score(), b.score()));
+            long total = 0;
+            for (Segment segment : segments) {
+                if ((from != null && segment.maxTime < from) || (to != null && segment.minTime > to)) {
+                    continue;
+                }
+                total += segment.search(clauses, termOrder, idf, averageLength, service, levelCode, from, to,
+                        limit, top);
+            }
+
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort((a, b) -> Double.compare(b.score(), a.score()));
+            return new Result(total, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Segment openSegment() {
+        Segment segment = new Segment();
+        segments.add(segment);
+        return segment;
+    }
+
+    private void append(Segment segment, String id, String serviceUrl, String level, long time, List<String> tokens) {
+        int service = serviceCodes.computeIfAbsent(serviceUrl, k -> serviceCodes.size());
+        int levelCode = levelCodes.computeIfAbsent(level, k -> levelCodes.size());
+        segment.add(id, service, levelCode, time, tokens);
+        totalLength += tokens.size();
+        documentCount++;
+    }
+
+    private void evict(long now) {
+        long cutoff = now - maxAge;
+        segments.removeIf(segment -> {
+            if (segment.documentCount > 0 && segment.maxTime < cutoff) {
+                drop(segment);
+                return true;
+            }
+            return false;
+        });
+        while (documentCount > maxDocuments && segments.size() > 1) {
+            Segment oldest = segments.stream()
+                    .filter(segment -> segment != live)
+                    .min(Comparator.comparingLong(segment -> segment.maxTime))
+                    .orElse(null);
+            if (oldest == null) {
+                break;
+            }
+            segments.remove(oldest);
+            drop(oldest);
+        }
+    }
+
+    private void drop(Segment segment) {
+        documentCount -= segment.documentCount;
+        totalLength -= segment.totalLength;
+        if (segment == live) {
+            live = null;
+        }
+        if (segment == loading) {
+            loading = null;
+        }
+    }
+
+    // Whether some occurrence of the clause's first term is followed by the remaining terms in order
+    private static boolean matchesPhrase(List<String> clause, List<String> termOrder, Postings[] lists, int[] cursors) {
+        Postings first = lists[termOrder.indexOf(clause.get(0))];
+        int firstCursor = cursors[termOrder.indexOf(clause.get(0))];
+        for (int p = first.positionStart(firstCursor); p < first.positionEnd(firstCursor); p++) {
+            int start = first.positions[p];
+            boolean match = true;
+            for (int offset = 1; offset < clause.size() && match; offset++) {
+                int index = termOrder.indexOf(clause.get(offset));
+                match = lists[index].hasPosition(cursors[index], start + offset);
+            }
+            if (match) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (token.length() < MAX_TOKEN_LENGTH) {
+                    token.append(Character.toLowerCase(c));
+                }
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    /** Postings and per-document columns of a run of documents, indexed by document number. */
+    private static class Segment {
+        private final Map<String, Postings> postings = new HashMap<>();
+        private String[] ids = new String[1024];
+        private int[] services = new int[1024];
+        private int[] levels = new int[1024];
+        private long[] times = new long[1024];
+        private int[] lengths = new int[1024];
+        private int documentCount;
+        private long totalLength;
+        private long minTime = Long.MAX_VALUE;
+        private long maxTime = Long.MIN_VALUE;
+
+        void add(String id, int service, int level, long time, List<String> tokens) {
+            int doc = documentCount;
+            if (doc == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                services = Arrays.copyOf(services, capacity);
+                levels = Arrays.copyOf(levels, capacity);
+                times = Arrays.copyOf(times, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            ids[doc] = id;
+            services[doc] = service;
+            levels[doc] = level;
+            times[doc] = time;
+            lengths[doc] = tokens.size();
+            for (int position = 0; position < tokens.size(); position++) {
+                postings.computeIfAbsent(tokens.get(position), t -> new Postings()).add(doc, position);
+            }
+            totalLength += tokens.size();
+            minTime = Math.min(minTime, time);
+            maxTime = Math.max(maxTime, time);
+            documentCount++;
+        }
+
+        // Adds this segment's best hits to `top` and returns how many documents matched
+        long search(List<List<String>> clauses, List<String> termOrder, double[] idf, double averageLength,
+                    Integer service, Integer levelCode, Long from, Long to, int limit, PriorityQueue<Hit> top) {
+            Postings[] lists = new Postings[termOrder.size()];
+            Postings rarest = null;
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(termOrder.get(i));
+                if (lists[i] == null) {
+                    return 0;
+                }
+                if (rarest == null || lists[i].size < rarest.size) {
+                    rarest = lists[i];
+                }
+            }
+
+            int[] cursors = new int[lists.length];
+            long total = 0;
+
+            candidates:
+            for (int r = 0; r < rarest.size; r++) {
+                int doc = rarest.docs[r];
+                if ((service != null && services[doc] != service) || (levelCode != null && levels[doc] != levelCode)
+                        || (from != null && times[doc] < from) || (to != null && times[doc] > to)) {
+                    continue;
+                }
+                for (int i = 0; i < lists.length; i++) {
+                    cursors[i] = lists[i].advance(cursors[i], doc);
+                    if (cursors[i] >= lists[i].size || lists[i].docs[cursors[i]] != doc) {
+                        continue candidates;
+                    }
+                }
+                for (List<String> clause : clauses) {
+                    if (clause.size() > 1 && !matchesPhrase(clause, termOrder, lists, cursors)) {
+                        continue candidates;
+                    }
+                }
+
+                double score = 0;
+                double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                for (int i = 0; i < lists.length; i++) {
+                    int tf = lists[i].frequency(cursors[i]);
+                    score += idf[i] * tf * (K1 + 1) / (tf + norm);
+                }
+                total++;
+                if (top.size() < limit) {
+                    top.add(new Hit(ids[doc], score));
+                } else if (limit > 0 && score > top.peek().score()) {
+                    top.poll();
+                    top.add(new Hit(ids[doc], score));
+                }
+            }
+            return total;
+        }
+    }
+
+    /** Documents containing a term, ascending, with each document's positions stored contiguously. */
+    private static class Postings {
+        private int[] docs = new int[2];
+        private int[] positionOffsets = new int[2];
+        private int[] positions = new int[2];
+        private int size;
+        private int positionCount;
+
+        void add(int doc, int position) {
+            if (size == 0 || docs[size - 1] != doc) {
+                if (size == docs.length) {
+                    docs = Arrays.copyOf(docs, size * 2);
+                    positionOffsets = Arrays.copyOf(positionOffsets, size * 2);
+                }
+                docs[size] = doc;
+                positionOffsets[size] = positionCount;
+                size++;
+            }
+            if (positionCount == positions.length) {
+                positions = Arrays.copyOf(positions, positionCount * 2);
+            }
+            positions[positionCount++] = position;
+        }
+
+        // Index of the first entry at or after `from` whose document is >= doc (galloping search)
+        int advance(int from, int doc) {
+            if (from >= size || docs[from] >= doc) {
+                return from;
+            }
+            int step = 1;
+            int low = from;
+            int high = from + step;
+            while (high < size && docs[high] < doc) {
+                low = high;
+                step <<= 1;
+                high = from + step;
+            }
+            high = Math.min(high, size - 1);
+            if (docs[high] < doc) {
+                return size;
+            }
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (docs[mid] < doc) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        int positionStart(int entry) {
+            return positionOffsets[entry];
+        }
+
+        int positionEnd(int entry) {
+            return entry + 1 < size ? positionOffsets[entry + 1] : positionCount;
+        }
+
+        int frequency(int entry) {
+            return positionEnd(entry) - positionStart(entry);
+        }
+
+        boolean hasPosition(int entry, int position) {
+            return Arrays.binarySearch(positions, positionStart(entry), positionEnd(entry), position) >= 0;
+        }
+    }
+}
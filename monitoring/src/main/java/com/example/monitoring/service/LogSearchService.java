@@ -0,0 +1,212 @@
+package com.example.monitoring.service;
+
+import com.example.monitoring.dto.LogSearchHitDTO;
+import com.example.monitoring.dto.LogSearchResultDTO;
+import com.example.monitoring.entity.LogEntry;
+import com.example.monitoring.repository.LogEntryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over collected log messages. New entries are indexed by {@link IngestBuffer} as they
+ * are written; entries stored before this process started are indexed from the database in the
+ * background after startup. Only the last {@code monitor.search.max-age} of entries, and at most
+ * {@code monitor.search.max-documents} of them, are kept searchable.
+ */
+@Service
+@RequiredArgsConstructor
+public class LogSearchService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    // Deepest hit a page may reach; every search keeps the best (page + 1) * size hits in a heap
+    private static final int MAX_RESULT_WINDOW = 10_000;
+    private static final String REBUILD_PAGE_FIRST =
+            "select id, service_url, level, message, collected_at from log_entries "
+                    + "where collected_at >= ? and collected_at < ? order by collected_at desc, id desc limit ?";
+    private static final String REBUILD_PAGE =
+            "select id, service_url, level, message, collected_at from log_entries "
+                    + "where collected_at >= ? and (collected_at < ? or (collected_at = ? and id < ?)) "
+                    + "order by collected_at desc, id desc limit ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LogEntryRepository logEntryRepository;
+    private final LogService logService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${monitor.search.max-documents:1000000}")
+    private int maxDocuments;
+
+    @Value("${monitor.search.max-age:24h}")
+    private Duration maxAge;
+
+    @Value("${monitor.search.segment-size:65536}")
+    private int segmentSize;
+
+    @Value("${monitor.search.rebuild-page-size:10000}")
+    private int rebuildPageSize;
+
+    private LogSearchIndex index;
+    private volatile boolean complete;
+    // Everything this process stores is collected after this instant, so the rebuild only reads older rows
+    private LocalDateTime startedAt;
+
+    @PostConstruct
+    public void init() {
+        startedAt = LocalDateTime.now();
+        index = new LogSearchIndex(segmentSize, maxDocuments, maxAge.toMillis());
+    }
+
+    public void index(Collection<LogEntry> entries) {
+        for (LogEntry entry : entries) {
+            index.add(entry.getId(), entry.getServiceUrl(), entry.getLevel(), toMillis(entry.getCollectedAt()),
+                    entry.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Thread rebuild = new Thread(this::loadStoredEntries, "log-index-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    // Pages backwards from startup through the last max-age of entries, newest first, until the window is
+    // exhausted or the index is full
+    private void loadStoredEntries() {
+        long start = System.currentTimeMillis();
+        int loaded = 0;
+        try {
+            Timestamp windowStart = Timestamp.valueOf(startedAt.minus(maxAge));
+            Timestamp lastTime = Timestamp.valueOf(startedAt);
+            String lastId = null;
+            boolean more = true;
+            while (more) {
+                List<Map<String, Object>> page = lastId == null
+                        ? jdbcTemplate.queryForList(REBUILD_PAGE_FIRST, windowStart, lastTime, rebuildPageSize)
+                        : jdbcTemplate.queryForList(REBUILD_PAGE, windowStart, lastTime, lastTime, lastId, rebuildPageSize);
+                for (Map<String, Object> row : page) {
+                    lastTime = (Timestamp) row.get("collected_at");
+                    lastId = (String) row.get("id");
+                    if (!index.load(lastId, (String) row.get("service_url"), (String) row.get("level"),
+                            toMillis(lastTime.toLocalDateTime()), (String) row.get("message"))) {
+                        more = false;
+                        break;
+                    }
+                    loaded++;
+                }
+                more = more && page.size() == rebuildPageSize;
+            }
+            logService.log("INFO", "Log search index loaded " + loaded + " entries in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            logService.log("ERROR", "Log search index rebuild stopped after " + loaded + " entries: " + e.getMessage());
+        } finally {
+            complete = true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${monitor.search.expire-interval:60000}")
+    public void expire() {
+        index.expire(System.currentTimeMillis());
+    }
+
+    /**
+     * Terms in {@code query} must all appear in the message; "quoted text" must appear as a phrase.
+     * Hits are ranked with BM25 and returned {@code size} per page.
+     */
+    public LogSearchResultDTO search(String query, String serviceUrl, String level, LocalDateTime from,
+                                     LocalDateTime to, int page, int size) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            LogSearchResultDTO result = runSearch(query, serviceUrl, level, from, to, page, size);
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(meterRegistry.timer("monitor.query.search", "outcome", outcome));
+        }
+    }
+
+    private LogSearchResultDTO runSearch(String query, String serviceUrl, String level, LocalDateTime from,
+                                         LocalDateTime to, int page, int size) {
+        List<List<String>> clauses = parse(query);
+        if (clauses.isEmpty()) {
+            throw new RuntimeException("Search query must contain at least one term");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+        long window = ((long) pageNumber + 1) * pageSize;
+        if (window > MAX_RESULT_WINDOW) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Search results are limited to the first " + MAX_RESULT_WINDOW + " hits; narrow the query");
+        }
+        int offset = (int) window - pageSize;
+
+        LogSearchIndex.Result result = index.search(clauses, serviceUrl, level,
+                from != null ? toMillis(from) : null, to != null ? toMillis(to) : null, (int) window);
+
+        List<LogSearchIndex.Hit> pageHits = result.hits().subList(
+                Math.min(offset, result.hits().size()), result.hits().size());
+        Map<String, LogEntry> entries = logEntryRepository
+                .findAllById(pageHits.stream().map(LogSearchIndex.Hit::id).toList())
+                .stream()
+                .collect(Collectors.toMap(LogEntry::getId, Function.identity()));
+
+        List<LogSearchHitDTO> hits = new ArrayList<>(pageHits.size());
+        for (LogSearchIndex.Hit hit : pageHits) {
+            LogEntry entry = entries.get(hit.id());
+            if (entry != null) {
+                hits.add(new LogSearchHitDTO(hit.score(), entry));
+            }
+        }
+        return new LogSearchResultDTO(result.total(), pageNumber, pageSize, complete, hits);
+    }
+
+    public int getIndexedCount() {
+        return index.size();
+    }
+
+    // Splits the query into clauses: each quoted part is one phrase clause, every other word its own clause
+    static List<List<String>> parse(String query) {
+        List<List<String>> clauses = new ArrayList<>();
+        if (query == null) {
+            return clauses;
+        }
+        String[] parts = query.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            List<String> tokens = LogSearchIndex.tokenize(parts[i]);
+            if (i % 2 == 1) {
+                if (!tokens.isEmpty()) {
+                    clauses.add(tokens);
+                }
+            } else {
+                tokens.forEach(token -> clauses.add(List.of(token)));
+            }
+        }
+        return clauses;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.monitoring.service;
+
+import com.example.monitoring.dto.MetricPointDTO;
+import com.example.monitoring.dto.MetricSeriesDTO;
+import com.example.monitoring.entity.Metric;
+import com.example.monitoring.entity.MetricRollup;
+import com.example.monitoring.entity.MetricRollup.Resolution;
+import com.example.monitoring.repository.MetricRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Aggregates one series into fixed {@code step} buckets. avg/min/max/sum/count/rate are answered from the
+ * 1 minute or 1 hour rollups when the step is a multiple of them, so long ranges stay cheap; p95 needs the
+ * raw samples and is therefore limited to the raw retention.
+ */
+@Service
+@RequiredArgsConstructor
+public class MetricQueryService {
+
+    private static final Set<String> AGGREGATES = Set.of("avg", "min", "max", "sum", "count", "p95", "rate");
+
+    private final MetricRepository metricRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${monitor.query.max-points:11000}")
+    private int maxPoints;
+
+    public MetricSeriesDTO query(String serviceUrl, String metricKey, LocalDateTime from, LocalDateTime to,
+                                 String step, String aggregate) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            MetricSeriesDTO result = runQuery(serviceUrl, metricKey, from, to, step, aggregate);
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(meterRegistry.timer("monitor.query.metrics", "outcome", outcome));
+        }
+    }
+
+    private MetricSeriesDTO runQuery(String serviceUrl, String metricKey, LocalDateTime from, LocalDateTime to,
+                                     String step, String aggregate) {
+        if (!AGGREGATES.contains(aggregate)) {
+            throw new RuntimeException("Unknown aggregate: " + aggregate + ", expected one of " + AGGREGATES);
+        }
+        long stepMillis = parseStep(step);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime begin = from != null ? from : end.minusHours(1);
+        long startMillis = Math.floorDiv(toMillis(begin), stepMillis) * stepMillis;
+        long endMillis = toMillis(end);
+
+        long points = (endMillis - startMillis) / stepMillis + 1;
+        if (points > maxPoints) {
+            throw new RuntimeException("Query would return " + points + " points (max " + maxPoints + "), use a larger step");
+        }
+
+        TreeMap<Long, Bucket> buckets = new TreeMap<>();
+        Resolution resolution = rollupResolution(stepMillis, aggregate);
+        if (resolution != null) {
+            for (MetricRollup rollup : metricRepository.findRollups(serviceUrl, metricKey, resolution, begin, end)) {
+                long bucketStart = Math.floorDiv(rollup.getBucketStart(), stepMillis) * stepMillis;
+                buckets.computeIfAbsent(bucketStart, b -> new Bucket(false)).add(rollup);
+            }
+        } else {
+            boolean keepValues = aggregate.equals("p95");
+            for (Metric sample : metricRepository.findRange(serviceUrl, metricKey, begin, end)) {
+                long bucketStart = Math.floorDiv(toMillis(sample.getCollectedAt()), stepMillis) * stepMillis;
+                buckets.computeIfAbsent(bucketStart, b -> new Bucket(keepValues)).add(sample.getMetricValue(),
+                        toMillis(sample.getCollectedAt()));
+            }
+        }
+
+        List<MetricPointDTO> result = new ArrayList<>(buckets.size());
+        Bucket previous = null;
+        for (Map.Entry<Long, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            Double value = switch (aggregate) {
+                case "min" -> bucket.min;
+                case "max" -> bucket.max;
+                case "sum" -> bucket.sum;
+                case "count" -> (double) bucket.count;
+                case "p95" -> bucket.percentile(0.95);
+                case "rate" -> bucket.ratePerSecond(previous);
+                default -> bucket.sum / bucket.count;
+            };
+            result.add(new MetricPointDTO(toLocalDateTime(entry.getKey()), value));
+            previous = bucket;
+        }
+
+        return new MetricSeriesDTO(serviceUrl, metricKey, aggregate, stepMillis / 1000, result);
+    }
+
+    private static Resolution rollupResolution(long stepMillis, String aggregate) {
+        if (aggregate.equals("p95")) {
+            return null;
+        }
+        if (stepMillis % Resolution.HOUR.getMillis() == 0) {
+            return Resolution.HOUR;
+        }
+        if (stepMillis % Resolution.MINUTE.getMillis() == 0) {
+            return Resolution.MINUTE;
+        }
+        return null;
+    }
+
+    // Accepts "30s", "5m", "1h", "1d" or a number of seconds
+    private static long parseStep(String step) {
+        try {
+            char unit = step.charAt(step.length() - 1);
+            long seconds = switch (unit) {
+                case 's' -> Long.parseLong(step.substring(0, step.length() - 1));
+                case 'm' -> Long.parseLong(step.substring(0, step.length() - 1)) * 60;
+                case 'h' -> Long.parseLong(step.substring(0, step.length() - 1)) * 3600;
+                case 'd' -> Long.parseLong(step.substring(0, step.length() - 1)) * 86400;
+                default -> Long.parseLong(step);
+            };
+            if (seconds <= 0) {
+                throw new NumberFormatException();
+            }
+            return seconds * 1000;
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid step: " + step);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static class Bucket {
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+        private long count;
+        private double first;
+        private double last;
+        private long firstTime;
+        private long lastTime;
+        private final List<Double> values;
+
+        Bucket(boolean keepValues) {
+            values = keepValues ? new ArrayList<>() : null;
+        }
+
+        void add(double value, long time) {
+            if (count == 0) {
+                first = value;
+                firstTime = time;
+            }
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            count++;
+            last = value;
+            lastTime = time;
+            if (values != null) {
+                values.add(value);
+            }
+        }
+
+        void add(MetricRollup rollup) {
+            // Buckets written before sample times were tracked fall back to their start
+            if (count == 0) {
+                first = rollup.getFirstValue();
+                firstTime = rollup.getFirstTime() != null ? rollup.getFirstTime() : rollup.getBucketStart();
+            }
+            min = Math.min(min, rollup.getMinValue());
+            max = Math.max(max, rollup.getMaxValue());
+            sum += rollup.getSumValue();
+            count += rollup.getSampleCount();
+            last = rollup.getLastValue();
+            lastTime = rollup.getLastTime() != null ? rollup.getLastTime() : rollup.getBucketStart();
+        }
+
+        // Nearest-rank percentile
+        Double percentile(double p) {
+            Collections.sort(values);
+            return values.get((int) Math.ceil(p * values.size()) - 1);
+        }
+
+        // Per-second increase of a counter since the last sample of the previous bucket, over the time
+        // actually elapsed between the two samples, so gaps and jitter do not skew it; a drop means the
+        // counter was reset. Null when there is only one sample to go on.
+        Double ratePerSecond(Bucket previous) {
+            double base = previous != null ? previous.last : first;
+            long baseTime = previous != null ? previous.lastTime : firstTime;
+            if (lastTime <= baseTime) {
+                return null;
+            }
+            double increase = last >= base ? last - base : last;
+            return increase / ((lastTime - baseTime) / 1000.0);
+        }
+    }
+}
@@ -2,66 +2,240 @@ package com.example.monitoring.service;
 
 import com.example.monitoring.entity.LogEntry;
 import com.example.monitoring.entity.Metric;
+import com.example.monitoring.entity.MetricRollup;
+import com.example.monitoring.entity.MetricRollup.Resolution;
 import com.example.monitoring.repository.LogEntryRepository;
 import com.example.monitoring.repository.MetricRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 public class MonitoringService {
 
+    private static final String METRICS = "metrics";
+    private static final String LOGS = "logs";
+
     private final MetricRepository metricRepository;
     private final LogEntryRepository logEntryRepository;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+    private final IngestBuffer ingestBuffer;
+    private final MeterRegistry meterRegistry;
+    private final LogService logService;
 
     @Value("${monitor.targets}")
     private List<String> targets;
 
-    @Scheduled(fixedDelayString = "${monitor.scrape.period}")
-    public void scrapeMetrics() {
+    @Value("${monitor.scrape.period}")
+    private long scrapePeriod;
+
+    @Value("${monitor.timeout:2000}")
+    private long timeout;
+
+    @Value("${monitor.scrape.jitter:250}")
+    private long jitter;
+
+    @Value("${monitor.scrape.max-backoff:60000}")
+    private long maxBackoff;
+
+    @Value("${monitor.scrape.concurrency:32}")
+    private int concurrency;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final List<ScrapeJob> metricJobs = new ArrayList<>();
+    private final List<ScrapeJob> logJobs = new ArrayList<>();
+    private SimpleAsyncTaskExecutor scrapeExecutor;
+    private Semaphore scrapeSlots;
+
+    @PostConstruct
+    public void init() {
+        scrapeExecutor = new SimpleAsyncTaskExecutor("scrape-");
+        scrapeExecutor.setVirtualThreads(virtualThreads);
+        // Not setConcurrencyLimit: that blocks the submitting @Scheduled thread once the limit is reached
+        scrapeSlots = new Semaphore(concurrency);
+
         for (String url : targets) {
-            try {
-                Map<String, Object> data = restTemplate.getForObject(url + "/metrics", Map.class);
-                if (data != null) {
-                    data.forEach((key, value) -> {
-                        Double metricValue = parseToDouble(value);
-                        metricRepository.save(new Metric(url, key, metricValue));
-                    });
-                }
-            } catch (Exception e) {
-                metricRepository.save(new Metric(url, "UNREACHABLE", 1.0));
+            metricJobs.add(register(new ScrapeJob(url, METRICS)));
+            ScrapeJob logJob = new ScrapeJob(url, LOGS);
+            Long lastSeq = logEntryRepository.findMaxSeqByServiceUrl(url);
+            if (lastSeq != null) {
+                logJob.setCursor(lastSeq);
             }
+            logJobs.add(register(logJob));
         }
     }
 
+    private ScrapeJob register(ScrapeJob job) {
+        Gauge.builder("monitor.scrape.staleness", job, ScrapeJob::stalenessSeconds)
+                .description("Seconds since the last successful scrape")
+                .baseUnit("seconds")
+                .tags("target", job.getUrl(), "type", job.getType())
+                .register(meterRegistry);
+        Gauge.builder("monitor.scrape.consecutive.failures", job, ScrapeJob::getConsecutiveFailures)
+                .tags("target", job.getUrl(), "type", job.getType())
+                .register(meterRegistry);
+        return job;
+    }
+
+    @Scheduled(fixedDelayString = "${monitor.scrape.period}")
+    public void scrapeMetrics() {
+        runAll(metricJobs, job -> {
+            String url = job.getUrl();
+            Map<String, Object> data = restTemplate.getForObject(url + "/metrics", Map.class);
+            if (data != null) {
+                List<Metric> rows = new ArrayList<>(data.size());
+                data.forEach((key, value) -> rows.add(new Metric(url, key, parseToDouble(value))));
+                metricRepository.saveAll(rows);
+            }
+            return CompletableFuture.completedFuture(null);
+        }, (url, e) -> metricRepository.save(new Metric(url, "UNREACHABLE", 1.0)));
+    }
+
     @Scheduled(fixedDelayString = "${monitor.scrape.period}")
     public void scrapeLogs() {
-        for (String url : targets) {
-            try {
-                List<Map<String, String>> logs = restTemplate.getForObject(url + "/logs", List.class);
-                if (logs != null) {
-                    logs.forEach(log -> {
-                        String ts = log.get("ts");
-                        String level = log.get("level");
-                        String msg = log.get("msg");
-                        logEntryRepository.save(new LogEntry(url, ts, level, msg));
-                    });
+        runAll(logJobs, job -> {
+            String url = job.getUrl();
+            List<Map<String, String>> logs = restTemplate.getForObject(url + "/logs?since=" + job.getCursor(), List.class);
+            if (logs == null || logs.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            Long lastSeq = null;
+            List<LogEntry> rows = new ArrayList<>(logs.size());
+            for (Map<String, String> log : logs) {
+                String ts = log.get("ts");
+                String level = log.get("level");
+                String msg = log.get("msg");
+                Long seq = log.get("seq") != null ? Long.valueOf(log.get("seq")) : null;
+                if (seq != null && (lastSeq == null || seq > lastSeq)) {
+                    lastSeq = seq;
                 }
+                rows.add(new LogEntry(url, ts, level, msg, seq));
+            }
+            Long cursor = lastSeq;
+            // The cursor only moves once the rows are committed; if they are rejected or fail to store,
+            // the next scrape fetches them again. Normally only entries past the cursor come back. If the
+            // target sent its whole buffer because our cursor is ahead of it, this moves the cursor back
+            // to its latest entry.
+            return ingestBuffer.addLogs(rows).thenRun(() -> {
+                if (cursor != null) {
+                    job.setCursor(cursor);
+                }
+            });
+        }, (url, e) -> ingestBuffer.addLogs(List.of(new LogEntry(url,
+                java.time.LocalDateTime.now().toString(),
+                "ERROR",
+                "Failed to fetch logs: " + e.getMessage()))));
+    }
+
+    // Starts every due target at once and waits at most one target timeout (plus jitter) for them.
+    // A target that is still running after that is left to finish on its own and skipped until it does,
+    // so one slow service never holds up the cycle of the others.
+    private void runAll(List<ScrapeJob> jobs, Function<ScrapeJob, CompletableFuture<Void>> scrape, BiConsumer<String, Exception> onFailure) {
+        long now = System.currentTimeMillis();
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (ScrapeJob job : jobs) {
+            if (!job.tryStart(now)) {
+                continue;
+            }
+            // With every slot taken the target waits for the next cycle rather than the scheduler thread
+            if (!scrapeSlots.tryAcquire()) {
+                job.finish();
+                meterRegistry.counter("monitor.scrape.skipped", "target", job.getUrl(), "type", job.getType()).increment();
+                continue;
+            }
+            try {
+                running.add(CompletableFuture.runAsync(() -> run(job, scrape, onFailure), scrapeExecutor));
+            } catch (RuntimeException e) {
+                scrapeSlots.release();
+                job.finish();
+                throw e;
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(running.toArray(new CompletableFuture[0]))
+                    .get(timeout + jitter + 1000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // failures are recorded per target in run()
+        }
+    }
+
+    // A scrape returns once its rows are handed over; the job stays running until they are stored, so the
+    // next cycle cannot fetch the same rows again from a cursor that has not moved yet.
+    private void run(ScrapeJob job, Function<ScrapeJob, CompletableFuture<Void>> scrape,
+                     BiConsumer<String, Exception> onFailure) {
+        CompletableFuture<Void> stored = null;
+        try {
+            // Spread requests over the jitter window so targets are not all hit in the same instant
+            Thread.sleep(ThreadLocalRandom.current().nextLong(jitter + 1));
+
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "success";
+            try {
+                stored = scrape.apply(job);
             } catch (Exception e) {
-                logEntryRepository.save(new LogEntry(url,
-                    java.time.LocalDateTime.now().toString(),
-                    "ERROR",
-                    "Failed to fetch logs: " + e.getMessage()));
+                outcome = "failure";
+                failed(job);
+                onFailure.accept(job.getUrl(), e);
+            } finally {
+                sample.stop(meterRegistry.timer("monitor.scrape.duration",
+                        "target", job.getUrl(), "type", job.getType(), "outcome", outcome));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // onFailure itself failed, e.g. the database is down; try again next cycle
+        } finally {
+            scrapeSlots.release();
+            if (stored == null) {
+                job.finish();
             }
         }
+
+        if (stored != null) {
+            stored.whenComplete((ignored, error) -> {
+                if (error == null) {
+                    job.succeeded(System.currentTimeMillis());
+                } else {
+                    failed(job);
+                    logService.log("WARN", "Failed to store " + job.getType() + " of " + job.getUrl() + ": "
+                            + error.getMessage());
+                }
+                job.finish();
+            });
+        }
+    }
+
+    private void failed(ScrapeJob job) {
+        job.failed(System.currentTimeMillis(), scrapePeriod, maxBackoff,
+                ThreadLocalRandom.current().nextLong(jitter + 1));
     }
 
     private Double parseToDouble(Object value) {
@@ -75,21 +249,27 @@ public class MonitoringService {
         }
     }
 
+    // Pages over the latest sample of each series; history is read per service with getMetricsByService
     public Page<Metric> getAllMetrics(int page, int size) {
         PageRequest pageable = PageRequest.of(page, size);
+        List<Metric> latest = metricRepository.findLatest();
+        int start = (int) Math.min(pageable.getOffset(), latest.size());
+        int end = Math.min(start + size, latest.size());
 
-        return metricRepository.findAll(pageable);
-    }
-
-    public List<Metric> getMetricsByService(String serviceUrl) {
-        return metricRepository.findByServiceUrl(serviceUrl);
+        return new PageImpl<>(latest.subList(start, end), pageable, latest.size());
     }
 
-    public List<LogEntry> getAllLogs() {
-        return logEntryRepository.findAll();
+    public List<Metric> getMetricsByService(String serviceUrl, String metricKey, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(1);
+        return metricRepository.findRange(serviceUrl, metricKey, start, end);
     }
 
-    public List<LogEntry> getLogsByService(String serviceUrl) {
-        return logEntryRepository.findByServiceUrl(serviceUrl);
+    public List<MetricRollup> getMetricRollups(String serviceUrl, String metricKey, String resolution,
+                                               LocalDateTime from, LocalDateTime to) {
+        Resolution res = Resolution.fromCode(resolution);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(res == Resolution.HOUR ? 7 : 1);
+        return metricRepository.findRollups(serviceUrl, metricKey, res, start, end);
     }
 }
@@ -0,0 +1,73 @@
+package com.example.monitoring.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Scrape state of one endpoint ({@code /metrics} or {@code /logs}) of one target.
+ * {@code running} keeps a slow scrape from overlapping with the next cycle; the remaining fields
+ * are only written by the scrape that holds it.
+ */
+class ScrapeJob {
+
+    private final String url;
+    private final String type;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile long lastSuccessAt = System.currentTimeMillis();
+    private volatile int consecutiveFailures;
+    private volatile long nextAttemptAt;
+    // Sequence number of the last log entry stored for this target (log jobs only)
+    private volatile long cursor;
+
+    ScrapeJob(String url, String type) {
+        this.url = url;
+        this.type = type;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    String getType() {
+        return type;
+    }
+
+    boolean tryStart(long now) {
+        return now >= nextAttemptAt && running.compareAndSet(false, true);
+    }
+
+    void finish() {
+        running.set(false);
+    }
+
+    void succeeded(long now) {
+        lastSuccessAt = now;
+        consecutiveFailures = 0;
+        nextAttemptAt = 0;
+    }
+
+    // The first failure is retried on the next cycle; after that the wait doubles up to maxBackoff.
+    void failed(long now, long period, long maxBackoff, long jitter) {
+        consecutiveFailures++;
+        if (consecutiveFailures > 1) {
+            long backoff = Math.min(maxBackoff, period << Math.min(consecutiveFailures - 1, 16));
+            nextAttemptAt = now + backoff + jitter;
+        }
+    }
+
+    double stalenessSeconds() {
+        return (System.currentTimeMillis() - lastSuccessAt) / 1000.0;
+    }
+
+    long getCursor() {
+        return cursor;
+    }
+
+    void setCursor(long cursor) {
+        this.cursor = cursor;
+    }
+
+    int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+}
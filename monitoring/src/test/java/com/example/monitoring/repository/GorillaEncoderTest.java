@@ -0,0 +1,130 @@
+package com.example.monitoring.repository;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class GorillaEncoderTest {
+
+    @Test
+    void roundTripsASingleSample() {
+        assertRoundTrip(new long[] {1_700_000_000_000L}, new double[] {42.5});
+    }
+
+    @Test
+    void packsARegularScrapeOfUnchangedValuesIntoTwoBitsPerSample() {
+        int count = 120;
+        long[] timestamps = new long[count];
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = 1_700_000_000_000L + i * 5000L;
+            values[i] = 1.0;
+        }
+
+        byte[] data = assertRoundTrip(timestamps, values);
+
+        // 128 bits for the first sample, 69 for the second, whose 5000 ms delta needs the 64 bit bucket,
+        // then a 0 bit for the delta-of-delta and a 0 bit for the unchanged value
+        long bits = 128 + 69 + (count - 2) * 2L;
+        assertEquals((bits + 7) / 8, data.length);
+    }
+
+    @Test
+    void roundTripsEveryDeltaOfDeltaBucket() {
+        long[] deltas = {
+                5000, 5000, 5001, 4937, 5063, 4745, 5255, 2953, 7047,
+                0, 0, 1, 3_600_000, 1, 86_400_000L * 365
+        };
+        long[] timestamps = new long[deltas.length + 1];
+        timestamps[0] = 1_700_000_000_000L;
+        for (int i = 0; i < deltas.length; i++) {
+            timestamps[i + 1] = timestamps[i] + deltas[i];
+        }
+        double[] values = new double[timestamps.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+
+        assertRoundTrip(timestamps, values);
+    }
+
+    @Test
+    void roundTripsSpecialValuesBitForBit() {
+        double[] values = {
+                0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MIN_VALUE,
+                -Double.MAX_VALUE, Double.MAX_VALUE, 1e-300, 0.1, 0.1, 0.2, Double.longBitsToDouble(1L),
+                Double.longBitsToDouble(Long.MIN_VALUE | 1L), 12345.678
+        };
+        long[] timestamps = new long[values.length];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = 1_700_000_000_000L + i * 5000L;
+        }
+
+        assertRoundTrip(timestamps, values);
+    }
+
+    @Test
+    void roundTripsRandomSeries() {
+        Random random = new Random(42);
+        for (int series = 0; series < 100; series++) {
+            int count = 1 + random.nextInt(500);
+            long[] timestamps = new long[count];
+            double[] values = new double[count];
+            long timestamp = random.nextLong() >>> 20;
+            double value = random.nextDouble() * 1000;
+            for (int i = 0; i < count; i++) {
+                // Mostly a steady scrape with jitter, sometimes a long gap or a repeated timestamp
+                int kind = random.nextInt(10);
+                timestamp += kind == 0 ? random.nextInt(10_000_000) : kind == 1 ? 0 : 5000 + random.nextInt(201) - 100;
+                // Mostly small drifts or repeats, sometimes a completely different value
+                int change = random.nextInt(4);
+                value = change == 0 ? value : change == 3 ? Double.longBitsToDouble(random.nextLong())
+                        : value + random.nextGaussian();
+                timestamps[i] = timestamp;
+                values[i] = value;
+            }
+
+            assertRoundTrip(timestamps, values);
+        }
+    }
+
+    @Test
+    void tracksFirstAndLastTimestampAndCount() {
+        GorillaEncoder encoder = new GorillaEncoder();
+        encoder.append(1000, 1.0);
+        encoder.append(6000, 2.0);
+        encoder.append(11000, 3.0);
+
+        assertEquals(3, encoder.getCount());
+        assertEquals(1000, encoder.getFirstTimestamp());
+        assertEquals(11000, encoder.getLastTimestamp());
+    }
+
+    private static byte[] assertRoundTrip(long[] timestamps, double[] values) {
+        GorillaEncoder encoder = new GorillaEncoder();
+        for (int i = 0; i < timestamps.length; i++) {
+            encoder.append(timestamps[i], values[i]);
+        }
+        byte[] data = encoder.toByteArray();
+
+        List<Long> decodedTimestamps = new ArrayList<>();
+        List<Long> decodedValues = new ArrayList<>();
+        new GorillaDecoder(data).decode(encoder.getCount(), (timestamp, value) -> {
+            decodedTimestamps.add(timestamp);
+            decodedValues.add(Double.doubleToRawLongBits(value));
+        });
+
+        long[] expectedValues = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            expectedValues[i] = Double.doubleToRawLongBits(values[i]);
+        }
+        assertArrayEquals(timestamps, decodedTimestamps.stream().mapToLong(Long::longValue).toArray());
+        assertArrayEquals(expectedValues, decodedValues.stream().mapToLong(Long::longValue).toArray());
+        return data;
+    }
+}
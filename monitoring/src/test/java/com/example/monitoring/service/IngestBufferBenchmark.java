@@ -0,0 +1,228 @@
+package com.example.monitoring.service;
+
+import java.lang.reflect.Proxy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.monitoring.entity.LogEntry;
+import com.example.monitoring.entity.Metric;
+import com.example.monitoring.repository.LogEntryRepository;
+import com.example.monitoring.repository.MetricRepository;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Rows stored per second for scraped logs and metrics: one insert and commit per row, as
+ * {@code logEntryRepository.save} and {@code metricRepository.save} did for every scraped line and key,
+ * against {@link IngestBuffer}'s batched inserts for logs and the {@link MetricRepository} time-series
+ * store for metrics. Needs a MySQL database it may empty, given by BENCH_JDBC_URL, BENCH_JDBC_USER and
+ * BENCH_JDBC_PASSWORD (default {@code db_monitoring_bench} on localhost).
+ * Run with {@code mvn -Pbench test -Dbench=IngestBufferBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IngestBufferBenchmark {
+
+    private static final int ROWS = 1000;
+    // A scrape returns one sample per metric key; ROWS samples are SCRAPES scrapes of the same keys
+    private static final int METRIC_KEYS = 50;
+    private static final int SCRAPES = ROWS / METRIC_KEYS;
+    private static final long SCRAPE_PERIOD = 5000;
+    private static final String SERVICE_URL = "http://localhost:8082";
+    private static final String INSERT_LOG =
+            "insert into log_entries (id, service_url, timestamp, level, message, seq, collected_at) values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_METRIC =
+            "insert into metrics (id, service_url, metric_key, metric_value, collected_at) values (?, ?, ?, ?, ?)";
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private AnnotationConfigApplicationContext context;
+    private IngestBuffer ingestBuffer;
+    private MetricRepository metricRepository;
+    private long seq;
+    private LocalDateTime scrapedAt = LocalDateTime.now();
+
+    @Setup
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(env("BENCH_JDBC_URL",
+                "jdbc:mysql://localhost:3306/db_monitoring_bench?createDatabaseIfNotExist=true&rewriteBatchedStatements=true"));
+        dataSource.setUsername(env("BENCH_JDBC_USER", "root"));
+        dataSource.setPassword(env("BENCH_JDBC_PASSWORD", ""));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("create table if not exists log_entries (id varchar(255) not null primary key, "
+                + "service_url varchar(255), timestamp varchar(255), level varchar(255), message varchar(1000), "
+                + "seq bigint, collected_at datetime(6), "
+                + "index idx_log_entries_service_seq (service_url, seq), "
+                + "index idx_log_entries_collected (collected_at, id), "
+                + "index idx_log_entries_service_collected (service_url, collected_at, id))");
+        // The row-per-sample table metrics were written to before the time-series store
+        jdbcTemplate.execute("create table if not exists metrics (id varchar(255) not null primary key, "
+                + "service_url varchar(255), metric_key varchar(255), metric_value double, collected_at datetime(6))");
+        jdbcTemplate.execute("create table if not exists metric_chunks (id varchar(255) not null primary key, "
+                + "service_url varchar(255), metric_key varchar(255), start_time bigint, end_time bigint, "
+                + "sample_count integer, data blob, "
+                + "index idx_metric_chunks_series_time (service_url, metric_key, end_time), "
+                + "index idx_metric_chunks_end_time (end_time))");
+        jdbcTemplate.execute("create table if not exists metric_rollups (id varchar(255) not null primary key, "
+                + "service_url varchar(255), metric_key varchar(255), resolution varchar(8), bucket_start bigint, "
+                + "min_value double, max_value double, sum_value double, sample_count bigint, first_value double, "
+                + "last_value double, first_time bigint, last_time bigint, "
+                + "unique key uk_metric_rollups_bucket (service_url, metric_key, resolution, bucket_start), "
+                + "index idx_metric_rollups_resolution_time (resolution, bucket_start))");
+
+        // The buffer, the search index it feeds and the metric store, wired as in the service with their
+        // default settings
+        context = new AnnotationConfigApplicationContext();
+        // Converts settings such as monitor.search.max-age=24h the way Spring Boot does
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        context.registerBean(JdbcTemplate.class, () -> jdbcTemplate);
+        context.registerBean(TransactionTemplate.class, () -> transactionTemplate);
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.registerBean(LogEntryRepository.class, IngestBufferBenchmark::emptyLogEntryRepository);
+        context.registerBean(LogService.class, () -> new LogService(1024));
+        context.registerBean(LogSearchService.class);
+        context.registerBean(IngestBuffer.class);
+        context.registerBean(MetricRepository.class);
+        context.refresh();
+        ingestBuffer = context.getBean(IngestBuffer.class);
+        metricRepository = context.getBean(MetricRepository.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("truncate table log_entries");
+        jdbcTemplate.execute("truncate table metrics");
+        jdbcTemplate.execute("truncate table metric_chunks");
+        jdbcTemplate.execute("truncate table metric_rollups");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        dataSource.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void logRowPerInsert() {
+        for (LogEntry log : logRows()) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(INSERT_LOG,
+                    UUID.randomUUID().toString(), log.getServiceUrl(), log.getTimestamp(), log.getLevel(),
+                    log.getMessage(), log.getSeq(), Timestamp.valueOf(log.getCollectedAt())));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void logIngestBuffer() {
+        CompletableFuture<Void> stored = ingestBuffer.addLogs(logRows());
+        ingestBuffer.flush();
+        stored.join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void metricRowPerInsert() {
+        for (int i = 0; i < SCRAPES; i++) {
+            for (Metric metric : scrape()) {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(INSERT_METRIC,
+                        UUID.randomUUID().toString(), metric.getServiceUrl(), metric.getMetricKey(),
+                        metric.getMetricValue(), Timestamp.valueOf(metric.getCollectedAt())));
+            }
+        }
+    }
+
+    // Sealed chunks and closed rollups are written as they happen; open ones wait for the next checkpoint
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void metricStore() {
+        for (int i = 0; i < SCRAPES; i++) {
+            metricRepository.saveAll(scrape());
+        }
+    }
+
+    private List<LogEntry> logRows() {
+        List<LogEntry> rows = new ArrayList<>(ROWS);
+        String timestamp = LocalDateTime.now().toString();
+        for (int i = 0; i < ROWS; i++) {
+            LogEntry log = new LogEntry(SERVICE_URL, timestamp, "INFO",
+                    "Player 3f2c9a1e-7b44-4d0e-9c51-2a8e6f0d1b73 joined the queue");
+            log.setSeq(++seq);
+            rows.add(log);
+        }
+        return rows;
+    }
+
+    // One sample per key, SCRAPE_PERIOD after the previous scrape as with the default monitor.scrape.period
+    private List<Metric> scrape() {
+        scrapedAt = scrapedAt.plusNanos(TimeUnit.MILLISECONDS.toNanos(SCRAPE_PERIOD));
+        List<Metric> metrics = new ArrayList<>(METRIC_KEYS);
+        for (int i = 0; i < METRIC_KEYS; i++) {
+            metrics.add(new Metric(SERVICE_URL, "metric_" + i, (double) (seq++ % 100), scrapedAt));
+        }
+        return metrics;
+    }
+
+    // Answers every call with an empty result; only log search reads rows back, and the benchmark never searches
+    private static LogEntryRepository emptyLogEntryRepository() {
+        return (LogEntryRepository) Proxy.newProxyInstance(LogEntryRepository.class.getClassLoader(),
+                new Class<?>[] {LogEntryRepository.class}, (proxy, method, args) -> {
+                    Class<?> type = method.getReturnType();
+                    if (type == List.class || type == Iterable.class) {
+                        return List.of();
+                    }
+                    if (type == Optional.class) {
+                        return Optional.empty();
+                    }
+                    if (type == long.class) {
+                        return 0L;
+                    }
+                    if (type == int.class) {
+                        return 0;
+                    }
+                    if (type == boolean.class) {
+                        return false;
+                    }
+                    return null;
+                });
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.monitoring.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class LogSearchIndexTest {
+
+    private static final String SERVICE = "http://localhost:8082";
+    private static final long DAY = 86_400_000L;
+
+    private final long now = System.currentTimeMillis();
+
+    @Test
+    void tokenizesOnNonAlphanumericsAndLowercases() {
+        assertEquals(List.of("user", "3f2c", "joined", "queue", "eu", "west"),
+                LogSearchIndex.tokenize("User 3f2c joined queue[EU-west]!"));
+    }
+
+    @Test
+    void ranksMoreOccurrencesOfATermHigher() {
+        LogSearchIndex index = new LogSearchIndex(1024, 1000, DAY);
+        index.add("once", SERVICE, "ERROR", now, "timeout calling identity service now");
+        index.add("twice", SERVICE, "ERROR", now, "timeout calling identity after timeout");
+        index.add("none", SERVICE, "ERROR", now, "player joined the queue");
+
+        LogSearchIndex.Result result = index.search(clauses("timeout"), null, null, null, null, 10);
+
+        assertEquals(2, result.total());
+        assertEquals(List.of("twice", "once"), ids(result));
+    }
+
+    @Test
+    void ranksShorterDocumentsHigherForTheSameTermFrequency() {
+        LogSearchIndex index = new LogSearchIndex(1024, 1000, DAY);
+        index.add("long", SERVICE, "INFO", now, "match created for players alpha beta gamma delta epsilon");
+        index.add("short", SERVICE, "INFO", now, "match created");
+
+        assertEquals(List.of("short", "long"), ids(index.search(clauses("match"), null, null, null, null, 10)));
+    }
+
+    @Test
+    void weightsRepeatsOfARareTermAboveRepeatsOfACommonOne() {
+        LogSearchIndex index = new LogSearchIndex(1024, 1000, DAY);
+        for (int i = 0; i < 20; i++) {
+            index.add("filler" + i, SERVICE, "INFO", now, "purchase completed ok");
+        }
+        index.add("rare-repeated", SERVICE, "INFO", now, "purchase refunded refunded");
+        index.add("common-repeated", SERVICE, "INFO", now, "purchase purchase refunded");
+
+        assertEquals(List.of("rare-repeated", "common-repeated"),
+                ids(index.search(clauses("purchase", "refunded"), null, null, null, null, 10)));
+    }
+
+    @Test
+    void requiresEveryClauseToMatch() {
+        LogSearchIndex index = new LogSearchIndex(1024, 1000, DAY);
+        index.add("both", SERVICE, "ERROR", now, "database connection lost");
+        index.add("one", SERVICE, "ERROR", now, "database migrated");
+
+        assertEquals(List.of("both"), ids(index.search(clauses("database", "connection"), null, null, null, null, 10)));
+        assertEquals(0, index.search(clauses("database", "missing"), null, null, null, null, 10).total());
+    }
+
+    @Test
+    void matchesPhrasesOnlyWithTheirTermsInOrder() {
+        LogSearchIndex index = new LogSearchIndex(1024, 1000, DAY);
+        index.add("phrase", SERVICE, "ERROR", now, "connection refused by identity");
+        index.add("reversed", SERVICE, "ERROR", now, "refused connection from identity");
+        index.add("apart", SERVICE, "ERROR", now, "connection was refused");
+        // The phrase's first term occurs twice; only the second occurrence is followed by the rest
+        index.add("later", SERVICE, "ERROR", now, "connection retried then connection refused");
+
+        LogSearchIndex.Result result = index.search(List.of(List.of("connection", "refused")), null, null, null,
+                null, 10);
+
+        assertEquals(2, result.total());
+        // Ranked by the terms' frequencies like any other match, so the second "connection" counts
+        assertEquals(List.of("later", "phrase"), ids(result));
+    }
+
+    @Test
+    void appliesServiceLevelAndTimeFilters() {
+        LogSearchIndex index = new LogSearchIndex(1024, 1000, DAY);
+        index.add("match-error", SERVICE, "ERROR", now - 2000, "queue timeout");
+        index.add("match-info", SERVICE, "INFO", now - 1000, "queue timeout");
+        index.add("economy-error", "http://localhost:8083", "ERROR", now, "queue timeout");
+
+        assertEquals(List.of("match-error"), ids(index.search(clauses("timeout"), SERVICE, "ERROR", null, null, 10)));
+        assertEquals(List.of("match-info"),
+                ids(index.search(clauses("timeout"), null, null, now - 1500, now - 500, 10)));
+        assertEquals(0, index.search(clauses("timeout"), "http://unknown", null, null, null, 10).total());
+    }
+
+    @Test
+    void returnsTheBestHitsUpToTheLimitAndCountsAllMatches() {
+        // Small segments, so the top hits have to be merged across them
+        LogSearchIndex index = new LogSearchIndex(4, 1000, DAY);
+        for (int i = 1; i <= 10; i++) {
+            index.add("doc" + i, SERVICE, "INFO", now, ("error ").repeat(i) + "in scrape");
+        }
+
+        LogSearchIndex.Result result = index.search(clauses("error"), null, null, null, null, 3);
+
+        assertEquals(10, result.total());
+        assertEquals(List.of("doc10", "doc9", "doc8"), ids(result));
+    }
+
+    @Test
+    void dropsTheOldestSegmentsBeyondMaxDocumentsAndAge() {
+        LogSearchIndex index = new LogSearchIndex(2, 4, DAY);
+        for (int i = 1; i <= 6; i++) {
+            index.add("doc" + i, SERVICE, "INFO", now + i, "scrape finished");
+        }
+
+        assertEquals(4, index.size());
+        assertTrue(ids(index.search(clauses("scrape"), null, null, null, null, 10)).stream()
+                .noneMatch(id -> id.equals("doc1") || id.equals("doc2")));
+
+        index.expire(now + DAY + 10);
+        assertEquals(0, index.size());
+        assertEquals(0, index.search(clauses("scrape"), null, null, null, null, 10).total());
+    }
+
+    @Test
+    void stopsLoadingStoredEntriesOnceFull() {
+        LogSearchIndex index = new LogSearchIndex(2, 3, DAY);
+
+        assertTrue(index.load("a", SERVICE, "INFO", now, "stored entry"));
+        assertTrue(index.load("b", SERVICE, "INFO", now, "stored entry"));
+        assertTrue(index.load("c", SERVICE, "INFO", now, "stored entry"));
+        assertFalse(index.load("d", SERVICE, "INFO", now, "stored entry"));
+        assertEquals(3, index.size());
+    }
+
+    private static List<List<String>> clauses(String... terms) {
+        return List.of(terms).stream().map(List::of).toList();
+    }
+
+    private static List<String> ids(LogSearchIndex.Result result) {
+        return result.hits().stream().map(LogSearchIndex.Hit::id).toList();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.monitoring.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.monitoring.dto.LogSearchResultDTO;
+import com.example.monitoring.entity.LogEntry;
+import com.example.monitoring.repository.LogEntryRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LogSearchServiceTest {
+
+    private final LogEntryRepository logEntryRepository = mock(LogEntryRepository.class);
+    private LogSearchService logSearchService;
+
+    @BeforeEach
+    void setUp() {
+        logSearchService = new LogSearchService(null, logEntryRepository, new LogService(16), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(logSearchService, "maxDocuments", 100_000);
+        ReflectionTestUtils.setField(logSearchService, "maxAge", Duration.ofHours(24));
+        ReflectionTestUtils.setField(logSearchService, "segmentSize", 1024);
+        logSearchService.init();
+
+        List<LogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            LogEntry entry = new LogEntry("http://localhost:8082", "", "ERROR", "scrape failed " + i);
+            entry.setId("log-" + i);
+            entries.add(entry);
+        }
+        logSearchService.index(entries);
+        when(logEntryRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<LogEntry> found = new ArrayList<>();
+            invocation.<Iterable<String>>getArgument(0).forEach(id -> entries.stream()
+                    .filter(entry -> entry.getId().equals(id))
+                    .forEach(found::add));
+            return found;
+        });
+    }
+
+    @Test
+    void returnsTheRequestedPage() {
+        LogSearchResultDTO result = search(2, 100);
+
+        assertEquals(250, result.getTotal());
+        assertEquals(50, result.getHits().size());
+    }
+
+    @Test
+    void rejectsPagesBeyondTheResultWindow() {
+        assertBadRequest(100, 100);
+        // Would overflow an int offset
+        assertBadRequest(Integer.MAX_VALUE, 100);
+        assertBadRequest(Integer.MAX_VALUE / 50, 100);
+    }
+
+    @Test
+    void servesTheLastPageInsideTheResultWindow() {
+        assertEquals(0, search(99, 100).getHits().size());
+    }
+
+    private void assertBadRequest(int page, int size) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> search(page, size));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    private LogSearchResultDTO search(int page, int size) {
+        return logSearchService.search("scrape", null, null, null, null, page, size);
+    }
+}